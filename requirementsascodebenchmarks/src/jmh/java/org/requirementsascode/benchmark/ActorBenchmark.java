@@ -0,0 +1,45 @@
+package org.requirementsascode.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Actor;
+import org.requirementsascode.benchmark.ModelGenerator.Message0;
+
+/**
+ * Measures how long it takes an actor to react to a message and publish it to
+ * another actor, that reacts to it by publishing a message in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorBenchmark {
+  private Actor sender;
+  private Message0 message;
+
+  @Setup
+  public void setup() {
+    ModelGenerator modelGenerator = new ModelGenerator();
+    Actor receiver = new Actor("Receiver").withBehavior(modelGenerator.replyingBehavior());
+    sender = new Actor("Sender").withBehavior(modelGenerator.sendingBehavior(receiver));
+    message = new Message0();
+  }
+
+  @Benchmark
+  public Optional<Object> reactTo() {
+    return sender.reactTo(message);
+  }
+}
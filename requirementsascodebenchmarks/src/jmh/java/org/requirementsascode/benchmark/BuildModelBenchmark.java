@@ -0,0 +1,54 @@
+package org.requirementsascode.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.builder.ModelBuilder;
+
+/**
+ * Measures how long it takes to build models of different sizes. The steps are
+ * added to the model before each invocation, so only {@link ModelBuilder#build()}
+ * is measured.
+ *
+ * @see ModelStartupBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildModelBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int nrOfSteps;
+
+  private ModelGenerator modelGenerator;
+  private ModelBuilder modelBuilder;
+
+  @Setup
+  public void setup() {
+    modelGenerator = new ModelGenerator();
+  }
+
+  @Setup(Level.Invocation)
+  public void createSteps() {
+    modelBuilder = modelGenerator.flowlessModelBuilder(nrOfSteps);
+  }
+
+  @Benchmark
+  public Model build() {
+    return modelBuilder.build();
+  }
+}
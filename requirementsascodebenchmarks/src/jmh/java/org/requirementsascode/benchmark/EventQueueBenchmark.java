@@ -0,0 +1,109 @@
+package org.requirementsascode.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.queue.BoundedEventQueue;
+import org.requirementsascode.queue.EventQueue;
+import org.requirementsascode.queue.WaitStrategy;
+
+/**
+ * Compares the throughput of the {@link EventQueue}, that is based on a linked
+ * blocking deque, with the {@link BoundedEventQueue} and its wait strategies.
+ * Each invocation puts a number of events in the queue, and waits until the
+ * consumer has consumed them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+  private static final int EVENTS_PER_INVOCATION = 1000;
+  private static final Object EVENT = ModelGenerator.message(0);
+
+  @Param({ "EventQueue", "BoundedEventQueue-blocking", "BoundedEventQueue-parking", "BoundedEventQueue-spinning" })
+  private String queueType;
+
+  private EventProducer eventProducer;
+  private Runnable stopQueue;
+  private final AtomicLong nrOfPutEvents = new AtomicLong();
+  private volatile long nrOfConsumedEvents;
+
+  @Setup
+  public void setup() {
+    if ("EventQueue".equals(queueType)) {
+      EventQueue queue = new EventQueue(this::consume);
+      eventProducer = queue::put;
+      stopQueue = queue::stop;
+    } else {
+      BoundedEventQueue queue = new BoundedEventQueue(this::consume, BoundedEventQueue.DEFAULT_CAPACITY,
+        waitStrategy());
+      eventProducer = queue::put;
+      stopQueue = queue::stop;
+    }
+  }
+
+  private WaitStrategy waitStrategy() {
+    switch (queueType) {
+    case "BoundedEventQueue-parking":
+      return WaitStrategy.parking(10, TimeUnit.MICROSECONDS);
+    case "BoundedEventQueue-spinning":
+      return WaitStrategy.spinning();
+    default:
+      return WaitStrategy.blocking();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    stopQueue.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+  public void singleProducer() throws InterruptedException {
+    putEventsAndAwaitConsumption();
+  }
+
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+  public void fourProducers() throws InterruptedException {
+    putEventsAndAwaitConsumption();
+  }
+
+  private void putEventsAndAwaitConsumption() throws InterruptedException {
+    for (int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+      eventProducer.put(EVENT);
+    }
+    long nrOfEventsToConsume = nrOfPutEvents.addAndGet(EVENTS_PER_INVOCATION);
+    while (nrOfConsumedEvents < nrOfEventsToConsume) {
+      Thread.yield();
+    }
+  }
+
+  // Only called by the single consumer thread of the queue
+  private void consume(Object event) {
+    nrOfConsumedEvents++;
+  }
+
+  private interface EventProducer {
+    void put(Object event) throws InterruptedException;
+  }
+}
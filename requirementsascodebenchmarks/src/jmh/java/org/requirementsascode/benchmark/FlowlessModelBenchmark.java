@@ -0,0 +1,95 @@
+package org.requirementsascode.benchmark;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.metrics.StepProfiler;
+
+/**
+ * Measures how long it takes a model runner to dispatch a message, for models
+ * of flowless steps of different sizes.
+ *
+ * <p>
+ * Run {@link #reactToRaw()} with the gc profiler to check that dispatching a
+ * message doesn't allocate any objects. Compare {@link #reactTo()} with
+ * {@link #reactToWithStepProfiler()} to see the overhead of profiling with the
+ * default sampling interval, and with {@link #reactToWithUnsampledStepProfiler()}
+ * to see the overhead of measuring each step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowlessModelBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int nrOfSteps;
+
+  private ModelGenerator modelGenerator;
+  private ModelRunner modelRunner;
+  private ModelRunner profiledModelRunner;
+  private ModelRunner unsampledProfiledModelRunner;
+  private int stepIndex;
+
+  @Setup
+  public void setup() {
+    modelGenerator = new ModelGenerator();
+    Model model = modelGenerator.flowlessModel(nrOfSteps);
+    modelRunner = new ModelRunner().run(model);
+    profiledModelRunner = new ModelRunner().instrumentWith(new StepProfiler(model)).run(model);
+    unsampledProfiledModelRunner = new ModelRunner().instrumentWith(new StepProfiler(model, 1)).run(model);
+  }
+
+  @Benchmark
+  public Optional<Object> reactTo() {
+    return modelRunner.reactTo(nextMessage());
+  }
+
+  @Benchmark
+  public Optional<Object> reactToWithStepProfiler() {
+    return profiledModelRunner.reactTo(nextMessage());
+  }
+
+  @Benchmark
+  public Optional<Object> reactToWithUnsampledStepProfiler() {
+    return unsampledProfiledModelRunner.reactTo(nextMessage());
+  }
+
+  @Benchmark
+  public Object reactToRaw() {
+    return modelRunner.reactToRaw(nextMessage());
+  }
+
+  @Benchmark
+  public boolean canReactTo() {
+    return modelRunner.canReactTo(nextMessage().getClass());
+  }
+
+  @Benchmark
+  public Set<Class<?>> getReactToTypes() {
+    nextMessage();
+    return modelRunner.getReactToTypes();
+  }
+
+  // Selects the steps one after the other, so that all candidate steps are
+  // evaluated over time
+  private Object nextMessage() {
+    stepIndex = (stepIndex + 1) % nrOfSteps;
+    return modelGenerator.selectStep(stepIndex);
+  }
+}
@@ -0,0 +1,65 @@
+package org.requirementsascode.benchmark;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.benchmark.ModelGenerator.Message0;
+
+/**
+ * Measures how long it takes a model runner to dispatch a message, for flow
+ * based models with different numbers of interrupting flows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterruptingFlowsBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int nrOfInterruptingFlows;
+
+  private ModelRunner modelRunner;
+  private Message0 message;
+
+  @Setup
+  public void setup() {
+    Model model = new ModelGenerator().modelWithInterruptingFlows(nrOfInterruptingFlows);
+    modelRunner = new ModelRunner().run(model);
+    message = new Message0();
+  }
+
+  @Benchmark
+  public Optional<Object> reactTo() {
+    return modelRunner.reactTo(message);
+  }
+
+  @Benchmark
+  public Object reactToRaw() {
+    return modelRunner.reactToRaw(message);
+  }
+
+  @Benchmark
+  public boolean canReactTo() {
+    return modelRunner.canReactTo(Message0.class);
+  }
+
+  @Benchmark
+  public Set<Class<?>> getReactToTypes() {
+    return modelRunner.getReactToTypes();
+  }
+}
@@ -0,0 +1,121 @@
+package org.requirementsascode.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.JournalReader;
+import org.requirementsascode.JournalReplayer;
+import org.requirementsascode.JournalWriter;
+import org.requirementsascode.MessageCodec;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+
+/**
+ * Measures how long it takes to rebuild the state of a model runner from a
+ * journal, by replaying the messages, and by fast-forwarding to the latest
+ * step.
+ *
+ * <p>
+ * {@link #replay()} and {@link #fastForward()} read the journal file through
+ * {@link JournalReader#open(Path, MessageCodec...)}, i.e. memory mapped. Once
+ * the file is in the page cache, that's close to reading it from memory. The
+ * variants ending in FromBuffer read a copy of the journal in a direct buffer,
+ * for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalReplayBenchmark {
+  @Param({ "1000000", "10000000" })
+  public int nrOfMessages;
+
+  private final MessageCodec<Deposit> depositCodec = MessageCodec.of(Deposit.class,
+    (deposit, buffer) -> buffer.putInt(deposit.amount), buffer -> new Deposit(buffer.getInt()));
+
+  private Model model;
+  private Path journalFile;
+  private ByteBuffer journal;
+  private long balance;
+
+  @Setup
+  public void setup() throws IOException {
+    model = Model.builder()
+      .on(Deposit.class).system(deposit -> balance += deposit.amount)
+      .build();
+
+    journalFile = Files.createTempFile("journal", ".bin");
+    JournalWriter journalWriter = JournalWriter.create(journalFile, depositCodec);
+    ModelRunner modelRunner = new ModelRunner().run(model).startJournaling(journalWriter);
+    for (int i = 0; i < nrOfMessages; i++) {
+      modelRunner.reactTo(new Deposit(i));
+    }
+    journalWriter.close();
+
+    byte[] bytes = Files.readAllBytes(journalFile);
+    journal = ByteBuffer.allocateDirect(bytes.length);
+    journal.put(bytes).flip();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(journalFile);
+  }
+
+  @Benchmark
+  public long replay() throws IOException {
+    return replay(JournalReader.open(journalFile, depositCodec));
+  }
+
+  @Benchmark
+  public long fastForward() throws IOException {
+    return fastForward(JournalReader.open(journalFile, depositCodec));
+  }
+
+  @Benchmark
+  public long replayFromBuffer() {
+    return replay(new JournalReader(journal, depositCodec));
+  }
+
+  @Benchmark
+  public long fastForwardFromBuffer() {
+    return fastForward(new JournalReader(journal, depositCodec));
+  }
+
+  private long replay(JournalReader journalReader) {
+    balance = 0;
+    ModelRunner modelRunner = new ModelRunner().run(model);
+    new JournalReplayer(modelRunner).replay(journalReader);
+    return balance;
+  }
+
+  private long fastForward(JournalReader journalReader) {
+    ModelRunner modelRunner = new ModelRunner().run(model);
+    return new JournalReplayer(modelRunner).fastForward(journalReader);
+  }
+
+  public static class Deposit {
+    private final int amount;
+
+    public Deposit(int amount) {
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package org.requirementsascode.benchmark;
+
+import java.util.function.Consumer;
+
+import org.requirementsascode.AbstractActor;
+import org.requirementsascode.Model;
+import org.requirementsascode.builder.FlowPart;
+import org.requirementsascode.builder.ModelBuilder;
+import org.requirementsascode.builder.StepPart;
+import org.requirementsascode.builder.UseCasePart;
+
+/**
+ * Generates the reference models of the benchmarks, with a configurable number
+ * of steps.
+ *
+ * <p>
+ * The steps of the generated models react to messages of a fixed number of
+ * message classes. So the more steps a model has, the more candidate steps
+ * there are for each message. The condition of each step is only true if the
+ * step has been selected by {@link #selectStep(int)}, so that exactly one step
+ * reacts to the selected message.
+ */
+public class ModelGenerator {
+  public static final String USE_CASE = "Use case";
+  public static final String BASIC_STEP = "Basic step";
+  public static final int NR_OF_MESSAGE_CLASSES = 10;
+
+  private static final Object[] MESSAGES = { new Message0(), new Message1(), new Message2(), new Message3(),
+    new Message4(), new Message5(), new Message6(), new Message7(), new Message8(), new Message9() };
+
+  private final Consumer<Object> ignoresMessage = message -> {};
+  private int selectedStep;
+
+  /**
+   * Generates a model that consists of flowless steps. Step i reacts to
+   * messages of message class i % {@value #NR_OF_MESSAGE_CLASSES}, if it is the
+   * selected step.
+   *
+   * @param nrOfSteps the number of steps
+   * @return the model
+   */
+  public Model flowlessModel(int nrOfSteps) {
+    return flowlessModelBuilder(nrOfSteps).build();
+  }
+
+  /**
+   * Generates the builder of a model that consists of flowless steps, but
+   * doesn't build it.
+   *
+   * @see #flowlessModel(int)
+   * @param nrOfSteps the number of steps
+   * @return the model builder
+   */
+  public ModelBuilder flowlessModelBuilder(int nrOfSteps) {
+    ModelBuilder modelBuilder = Model.builder();
+    UseCasePart useCase = modelBuilder.useCase(USE_CASE);
+    for (int i = 0; i < nrOfSteps; i++) {
+      final int stepIndex = i;
+      useCase.condition(() -> selectedStep == stepIndex)
+        .step(stepName(i)).user(messageClass(i)).system(ignoresMessage);
+    }
+    return modelBuilder;
+  }
+
+  /**
+   * Generates a model with a basic flow, that consists of a single step that
+   * reacts to messages of class {@link Message0} repeatedly. The basic step is
+   * interrupted by the specified number of alternative flows, whose conditions
+   * are false. So each time the basic step reacts, the interrupting steps are
+   * checked as well.
+   *
+   * @param nrOfInterruptingFlows the number of alternative flows
+   * @return the model
+   */
+  public Model modelWithInterruptingFlows(int nrOfInterruptingFlows) {
+    ModelBuilder modelBuilder = Model.builder();
+    UseCasePart useCase = modelBuilder.useCase(USE_CASE);
+
+    FlowPart basicFlow = useCase.basicFlow();
+    basicFlow.step(BASIC_STEP).user(Message0.class).system(ignoresMessage).reactWhile(() -> true);
+
+    for (int i = 0; i < nrOfInterruptingFlows; i++) {
+      useCase.flow("Alternative flow " + i).insteadOf(BASIC_STEP).condition(() -> false)
+        .step("Alternative step " + i).user(Message0.class).system(ignoresMessage);
+    }
+    return modelBuilder.build();
+  }
+
+  /**
+   * Generates the builder of a model with a basic flow of a single step that
+   * reacts to messages of class {@link Message0}, and the specified number of
+   * alternative flows that start after it, but whose conditions are false. Each
+   * alternative flow has the specified number of steps, and continues after the
+   * basic step at the end. The model isn't built.
+   *
+   * @param nrOfFlows        the number of alternative flows
+   * @param nrOfStepsPerFlow the number of steps of each alternative flow
+   * @return the model builder
+   */
+  public ModelBuilder modelBuilderWithFlows(int nrOfFlows, int nrOfStepsPerFlow) {
+    ModelBuilder modelBuilder = Model.builder();
+    UseCasePart useCase = modelBuilder.useCase(USE_CASE);
+    useCase.basicFlow().step(BASIC_STEP).user(Message0.class).system(ignoresMessage);
+
+    for (int i = 0; i < nrOfFlows; i++) {
+      StepPart stepPart = useCase.flow("Alternative flow " + i).after(BASIC_STEP).condition(() -> false)
+        .step("Alternative step " + i + ".0");
+      for (int j = 1; j <= nrOfStepsPerFlow; j++) {
+        stepPart = stepPart.user(messageClass(j)).system(ignoresMessage).step("Alternative step " + i + "." + j);
+      }
+      stepPart.continuesAfter(BASIC_STEP);
+    }
+    return modelBuilder;
+  }
+
+  /**
+   * Generates the behavior of an actor that publishes the messages it receives
+   * to the specified recipient.
+   *
+   * @param recipient the actor to publish to
+   * @return the behavior of the sending actor
+   */
+  public Model sendingBehavior(AbstractActor recipient) {
+    Model model = Model.builder()
+      .on(Message0.class).systemPublish(message -> message).to(recipient)
+      .build();
+    return model;
+  }
+
+  /**
+   * Generates the behavior of an actor that reacts to the messages it receives
+   * by publishing a message of class {@link Message1}.
+   *
+   * @return the behavior of the replying actor
+   */
+  public Model replyingBehavior() {
+    Model model = Model.builder()
+      .on(Message0.class).systemPublish(message -> MESSAGES[1])
+      .build();
+    return model;
+  }
+
+  /**
+   * Selects the step whose condition is true, and returns a message the step
+   * reacts to.
+   *
+   * @param stepIndex the index of the step
+   * @return the message
+   */
+  public Object selectStep(int stepIndex) {
+    this.selectedStep = stepIndex;
+    return message(stepIndex);
+  }
+
+  public static Object message(int stepIndex) {
+    return MESSAGES[stepIndex % NR_OF_MESSAGE_CLASSES];
+  }
+
+  public static Class<?> messageClass(int stepIndex) {
+    return message(stepIndex).getClass();
+  }
+
+  private static String stepName(int stepIndex) {
+    return "Step " + stepIndex;
+  }
+
+  public static class Message0 {}
+  public static class Message1 {}
+  public static class Message2 {}
+  public static class Message3 {}
+  public static class Message4 {}
+  public static class Message5 {}
+  public static class Message6 {}
+  public static class Message7 {}
+  public static class Message8 {}
+  public static class Message9 {}
+}
@@ -0,0 +1,73 @@
+package org.requirementsascode.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.builder.ModelBuilder;
+
+/**
+ * Measures how long it takes until a large model has reacted to its first
+ * message: building the model, and running it. The model has many alternative
+ * flows of 20 steps each that are never reached. The steps are added to the
+ * model before each invocation, so only the startup is measured.
+ *
+ * <p>
+ * Compare {@link #buildAndReact()} with {@link #buildCompileAndReact()} to see
+ * how much compiling the whole model up front costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelStartupBenchmark {
+  private static final int NR_OF_STEPS_PER_FLOW = 20;
+
+  @Param({ "100", "1000" })
+  public int nrOfFlows;
+
+  private ModelGenerator modelGenerator;
+  private ModelBuilder modelBuilder;
+
+  @Setup
+  public void setup() {
+    modelGenerator = new ModelGenerator();
+  }
+
+  @Setup(Level.Invocation)
+  public void createSteps() {
+    modelBuilder = modelGenerator.modelBuilderWithFlows(nrOfFlows, NR_OF_STEPS_PER_FLOW);
+  }
+
+  @Benchmark
+  public ModelRunner buildAndReact() {
+    Model model = modelBuilder.build();
+    return react(model);
+  }
+
+  @Benchmark
+  public ModelRunner buildCompileAndReact() {
+    Model model = modelBuilder.build().compile();
+    return react(model);
+  }
+
+  private ModelRunner react(Model model) {
+    ModelRunner modelRunner = new ModelRunner().run(model);
+    modelRunner.reactTo(ModelGenerator.message(0));
+    return modelRunner;
+  }
+}
@@ -0,0 +1,120 @@
+package org.requirementsascode.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.Step;
+import org.requirementsascode.SystemReaction;
+import org.requirementsascode.builder.FlowlessUserPart;
+import org.requirementsascode.builder.UseCasePart;
+
+/**
+ * Measures how long it takes to invoke the system reactions of a model with
+ * many different reaction types: runnables, consumers, suppliers and functions.
+ *
+ * <p>
+ * {@link #invokeSystemReaction()} invokes the system reactions of the steps,
+ * which call their model objects directly. {@link #invokeWrapperChain()}
+ * invokes the same model objects through the chain of wrapping functions that
+ * system reactions used before, for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemReactionBenchmark {
+  @Param({ "4", "40" })
+  public int nrOfSteps;
+
+  private SystemReaction<Object>[] systemReactions;
+  private Function<Object, Object>[] wrapperChains;
+  private Object[] messages;
+  private int stepIndex;
+  private long sum;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    Model model = modelWithDifferentReactionTypes();
+    Step[] steps = model.getSteps().toArray(new Step[0]);
+    systemReactions = new SystemReaction[steps.length];
+    wrapperChains = new Function[steps.length];
+    messages = new Object[steps.length];
+    for (int i = 0; i < steps.length; i++) {
+      systemReactions[i] = (SystemReaction<Object>) steps[i].getSystemReaction();
+      wrapperChains[i] = wrapperChain(systemReactions[i].getModelObject());
+      messages[i] = Long.valueOf(i);
+    }
+  }
+
+  // Each step gets a lambda of its own, so the call sites see many classes
+  private Model modelWithDifferentReactionTypes() {
+    UseCasePart useCasePart = Model.builder().useCase("Reactions");
+    for (int i = 0; i < nrOfSteps; i++) {
+      long increment = i;
+      FlowlessUserPart<Long> userPart = useCasePart.step("S" + i).on(Long.class);
+      switch (i % 4) {
+      case 0:
+        userPart.system(() -> sum += increment);
+        break;
+      case 1:
+        userPart.system(message -> sum += message + increment);
+        break;
+      case 2:
+        userPart.systemPublish(() -> sum += increment);
+        break;
+      default:
+        userPart.systemPublish(message -> sum += message + increment);
+      }
+    }
+    return useCasePart.build();
+  }
+
+  // The wrapping functions that system reactions created before: a runnable
+  // was wrapped in a consumer, and a consumer in a function
+  @SuppressWarnings("unchecked")
+  private static Function<Object, Object> wrapperChain(Object modelObject) {
+    if (modelObject instanceof Runnable) {
+      Runnable runnable = (Runnable) modelObject;
+      return wrapperChain((Consumer<Object>) ignoredRunner -> runnable.run());
+    } else if (modelObject instanceof Consumer) {
+      Consumer<Object> consumer = (Consumer<Object>) modelObject;
+      return message -> {
+        consumer.accept(message);
+        return null;
+      };
+    } else if (modelObject instanceof Supplier) {
+      Supplier<Object> supplier = (Supplier<Object>) modelObject;
+      return message -> supplier.get();
+    }
+    return (Function<Object, Object>) modelObject;
+  }
+
+  @Benchmark
+  public Object invokeSystemReaction() {
+    stepIndex = (stepIndex + 1) % nrOfSteps;
+    return systemReactions[stepIndex].apply(messages[stepIndex]);
+  }
+
+  @Benchmark
+  public Object invokeWrapperChain() {
+    stepIndex = (stepIndex + 1) % nrOfSteps;
+    return wrapperChains[stepIndex].apply(messages[stepIndex]);
+  }
+}
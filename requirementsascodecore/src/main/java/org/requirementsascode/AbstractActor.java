@@ -1,6 +1,9 @@
 package org.requirementsascode;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import org.requirementsascode.exception.InfiniteRepetition;
@@ -20,6 +23,7 @@ import org.requirementsascode.exception.MoreThanOneStepCanReact;
 public abstract class AbstractActor {
   private String name;
   private ModelRunner modelRunner;
+  private volatile ActorMailbox mailbox;
 
   /**
    * Creates an actor with a name equal to the current class' simple name.
@@ -122,6 +126,116 @@ public abstract class AbstractActor {
    *         empty Optional.
    */
   public <T, U> Optional<U> reactTo(Object message, AbstractActor callingActor) {
+    ActorMailbox mailbox = this.mailbox;
+    if (mailbox == null || mailbox.isDrainingThread()) {
+      return reactNow(message, callingActor);
+    }
+    try {
+      return this.<T, U>reactToAsync(message, callingActor).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+  }
+
+  /**
+   * Provides a message to the actor, without waiting for the actor to react to
+   * it.
+   *
+   * <p>
+   * If the actor is in asynchronous mode (see {@link #async()}), the message is
+   * put in the actor's mailbox, and the actor reacts to it in another thread,
+   * after the messages that have been put in the mailbox before. Otherwise, the
+   * actor reacts to it immediately, as described in {@link #reactTo(Object)}.
+   *
+   * @param <T>     the type of message
+   * @param <U>     the return type that you as the user expects.
+   * @param message the message object
+   * @return a future that is completed with the event that was published
+   *         (latest) if the system reacted, or an empty Optional. The future is
+   *         completed exceptionally if the actor threw an exception.
+   */
+  public <T, U> CompletableFuture<Optional<U>> reactToAsync(T message) {
+    return reactToAsync(message, null);
+  }
+
+  /**
+   * Same as {@link #reactToAsync(Object)}, but with the specified actor as the
+   * calling user's role.
+   *
+   * @param <T>          the type of message
+   * @param <U>          the return type that you as the user expects.
+   * @param message      the message object
+   * @param callingActor the actor as which to call this actor.
+   * @return a future that is completed with the event that was published
+   *         (latest) if the system reacted, or an empty Optional.
+   */
+  public <T, U> CompletableFuture<Optional<U>> reactToAsync(Object message, AbstractActor callingActor) {
+    ActorMailbox mailbox = this.mailbox;
+    if (mailbox != null) {
+      return mailbox.send(message, callingActor);
+    }
+
+    CompletableFuture<Optional<U>> futureEvent = new CompletableFuture<>();
+    try {
+      futureEvent.complete(reactNow(message, callingActor));
+    } catch (RuntimeException e) {
+      futureEvent.completeExceptionally(e);
+    }
+    return futureEvent;
+  }
+
+  /**
+   * Switches the actor to asynchronous mode. In this mode, the actor owns a
+   * mailbox. All messages sent to the actor are put in the mailbox, and the
+   * actor reacts to them one at a time, in another thread. By default, that's a
+   * virtual thread if the JDK supports it, or a thread of a small shared pool
+   * otherwise.
+   *
+   * <p>
+   * When an actor publishes a message to an actor in asynchronous mode, it
+   * doesn't wait for the receiving actor to react. That way, interacting actors
+   * can work concurrently. If the receiving actor throws an exception, it is
+   * passed to the handler of the publishing actor's model runner, see
+   * {@link ModelRunner#handleAsyncExceptionWith(java.util.function.Consumer)}.
+   * Calling {@link #reactTo(Object)} waits for the reaction, and
+   * {@link #reactToAsync(Object)} returns without waiting.
+   *
+   * <p>
+   * Don't access the actor's model runner from other threads while messages
+   * are processed.
+   *
+   * @return this actor, for chaining
+   */
+  public AbstractActor async() {
+    return async(ActorMailbox.defaultExecutor());
+  }
+
+  /**
+   * Switches the actor to asynchronous mode, as described in {@link #async()},
+   * with the specified executor running the tasks that drain the mailbox.
+   *
+   * @param executor the executor of the mailbox
+   * @return this actor, for chaining
+   */
+  public AbstractActor async(Executor executor) {
+    this.mailbox = new ActorMailbox(this, executor);
+    return this;
+  }
+
+  /**
+   * Returns whether the actor is in asynchronous mode.
+   *
+   * @return true if asynchronous, false if synchronous
+   */
+  public boolean isAsync() {
+    return mailbox != null;
+  }
+
+  <U> Optional<U> reactNow(Object message, AbstractActor callingActor) {
     if (!getModelRunner().isRunning()) {
       run();
     }
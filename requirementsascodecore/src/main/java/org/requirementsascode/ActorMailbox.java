@@ -0,0 +1,142 @@
+package org.requirementsascode;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The mailbox of an actor in asynchronous mode.
+ *
+ * <p>
+ * Messages sent to the actor are put in the mailbox. When the mailbox isn't
+ * empty, a task that drains it is submitted to the executor. At most one such
+ * task is scheduled at a time, so the actor reacts to one message at a time,
+ * in the order the messages have been put in the mailbox, but not necessarily
+ * always in the same thread.
+ *
+ * <p>
+ * By default, each task is run in a new virtual thread, if the JDK supports
+ * virtual threads. On older JDKs, the tasks are run by a pool with as many
+ * threads as there are available processors, that is shared by all actors.
+ */
+final class ActorMailbox implements Runnable {
+  private static final int MAX_BATCH_SIZE = 64;
+
+  private final AbstractActor actor;
+  private final Executor executor;
+  private final Queue<Envelope<?>> envelopes;
+  private final AtomicBoolean isScheduled;
+  private volatile Thread drainingThread;
+
+  ActorMailbox(AbstractActor actor, Executor executor) {
+    this.actor = actor;
+    this.executor = executor;
+    this.envelopes = new ConcurrentLinkedQueue<>();
+    this.isScheduled = new AtomicBoolean();
+  }
+
+  <U> CompletableFuture<Optional<U>> send(Object message, AbstractActor callingActor) {
+    Envelope<U> envelope = new Envelope<>(message, callingActor);
+    envelopes.offer(envelope);
+    schedule();
+    return envelope.futureEvent;
+  }
+
+  boolean isDrainingThread() {
+    return drainingThread == Thread.currentThread();
+  }
+
+  private void schedule() {
+    if (isScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        isScheduled.set(false);
+        rejectAll(e);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    drainingThread = Thread.currentThread();
+    try {
+      for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+        Envelope<?> envelope = envelopes.poll();
+        if (envelope == null) {
+          break;
+        }
+        envelope.deliverTo(actor);
+      }
+    } finally {
+      drainingThread = null;
+      isScheduled.set(false);
+      // Messages may have been put in the mailbox after the last poll
+      if (!envelopes.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+
+  private void rejectAll(RejectedExecutionException e) {
+    Envelope<?> envelope;
+    while ((envelope = envelopes.poll()) != null) {
+      envelope.futureEvent.completeExceptionally(e);
+    }
+  }
+
+  static Executor defaultExecutor() {
+    return DefaultExecutor.INSTANCE;
+  }
+
+  private static class Envelope<U> {
+    private final Object message;
+    private final AbstractActor callingActor;
+    private final CompletableFuture<Optional<U>> futureEvent;
+
+    Envelope(Object message, AbstractActor callingActor) {
+      this.message = message;
+      this.callingActor = callingActor;
+      this.futureEvent = new CompletableFuture<>();
+    }
+
+    // An error is rethrown after the future has been completed, so that
+    // nobody waits for the future forever.
+    void deliverTo(AbstractActor actor) {
+      try {
+        Optional<U> event = actor.reactNow(message, callingActor);
+        futureEvent.complete(event);
+      } catch (Throwable t) {
+        futureEvent.completeExceptionally(t);
+        if (t instanceof Error) {
+          throw (Error) t;
+        }
+      }
+    }
+  }
+
+  // Created on first use, so that no threads are created for synchronous actors
+  private static class DefaultExecutor {
+    private static final Executor INSTANCE = create();
+
+    private static Executor create() {
+      try {
+        Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+          Thread thread = new Thread(runnable, "Actor mailbox");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+}
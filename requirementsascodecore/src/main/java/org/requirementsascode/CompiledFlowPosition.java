@@ -0,0 +1,115 @@
+package org.requirementsascode;
+
+import java.util.BitSet;
+
+import org.requirementsascode.flowposition.After;
+import org.requirementsascode.flowposition.AfterSingleStep;
+import org.requirementsascode.flowposition.Anytime;
+import org.requirementsascode.flowposition.FlowPosition;
+import org.requirementsascode.flowposition.InsteadOf;
+
+/**
+ * The compiled form of a {@link FlowPosition}: a table of the ids of the
+ * latest steps after which the runner is at the right position.
+ *
+ * <p>
+ * After, InsteadOf and Anytime positions, including the loops created by
+ * reactWhile and the positions added by continuesAt, are compiled when the
+ * model is compiled. Checking whether the runner is at the right position is a
+ * bit lookup then, without allocating objects and without resolving step names.
+ * Most positions follow a single step, e.g. the previous step in the flow. They
+ * only store its id, so that compiling the positions of a model with many steps
+ * doesn't allocate a table per step. Other kinds of flow positions are tested
+ * as they are.
+ */
+final class CompiledFlowPosition {
+  private static final int NO_STEP = -1;
+
+  private final Model model;
+  private final FlowPosition flowPosition;
+  private final boolean isCompiled;
+  private final boolean isAnytime;
+  private final boolean isAfterNoStep;
+  private final int latestStepId;
+  private final BitSet latestStepIds;
+
+  private CompiledFlowPosition(Model model, FlowPosition flowPosition, boolean isCompiled, boolean isAnytime,
+    boolean isAfterNoStep, int latestStepId, BitSet latestStepIds) {
+    this.model = model;
+    this.flowPosition = flowPosition;
+    this.isCompiled = isCompiled;
+    this.isAnytime = isAnytime;
+    this.isAfterNoStep = isAfterNoStep;
+    this.latestStepId = latestStepId;
+    this.latestStepIds = latestStepIds;
+  }
+
+  static CompiledFlowPosition compile(Model model, FlowPosition flowPosition) {
+    Class<?> flowPositionClass = flowPosition.getClass();
+
+    CompiledFlowPosition compiledFlowPosition;
+    if (Anytime.class.equals(flowPositionClass)) {
+      compiledFlowPosition = new CompiledFlowPosition(model, flowPosition, true, true, true, NO_STEP, null);
+    } else if (After.class.equals(flowPositionClass)) {
+      compiledFlowPosition = compileAfter(model, (After) flowPosition);
+    } else if (InsteadOf.class.equals(flowPositionClass)) {
+      compiledFlowPosition = compileInsteadOf(model, (InsteadOf) flowPosition);
+    } else {
+      compiledFlowPosition = new CompiledFlowPosition(model, flowPosition, false, false, false, NO_STEP, null);
+    }
+    return compiledFlowPosition;
+  }
+
+  private static CompiledFlowPosition compileAfter(Model model, After after) {
+    boolean isAfterNoStep = false;
+    int latestStepId = NO_STEP;
+    BitSet latestStepIds = null;
+
+    for (AfterSingleStep afterSingleStep : after.getAfterForEachSingleStep()) {
+      FlowStep step = afterSingleStep.getStep();
+      if (step == null) {
+        isAfterNoStep = true;
+      } else if (latestStepId == NO_STEP || latestStepId == step.getId()) {
+        latestStepId = step.getId();
+      } else {
+        if (latestStepIds == null) {
+          latestStepIds = new BitSet();
+          latestStepIds.set(latestStepId);
+        }
+        latestStepIds.set(step.getId());
+      }
+    }
+    return new CompiledFlowPosition(model, after, true, false, isAfterNoStep, latestStepId, latestStepIds);
+  }
+
+  // The runner is at the right position instead of a step,
+  // if it is at the right position for the step itself.
+  private static CompiledFlowPosition compileInsteadOf(Model model, InsteadOf insteadOf) {
+    FlowStep step = insteadOf.getStep();
+    CompiledFlowPosition positionOfStep = compile(model, step.getFlowPosition());
+    return new CompiledFlowPosition(model, insteadOf, positionOfStep.isCompiled, positionOfStep.isAnytime,
+      positionOfStep.isAfterNoStep, positionOfStep.latestStepId, positionOfStep.latestStepIds);
+  }
+
+  boolean test(ModelRunner modelRunner) {
+    if (!isCompiled) {
+      return flowPosition.test(modelRunner);
+    }
+    if (isAnytime) {
+      return true;
+    }
+
+    Step latestStep = modelRunner.getLatestStepOrNull();
+    boolean isRunnerAtRightPosition;
+    if (latestStep == null) {
+      isRunnerAtRightPosition = isAfterNoStep;
+    } else if (model != latestStep.getModel()) {
+      isRunnerAtRightPosition = false;
+    } else if (latestStepIds == null) {
+      isRunnerAtRightPosition = latestStep.getId() == latestStepId;
+    } else {
+      isRunnerAtRightPosition = latestStepIds.get(latestStep.getId());
+    }
+    return isRunnerAtRightPosition;
+  }
+}
@@ -0,0 +1,414 @@
+package org.requirementsascode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled, read-only snapshot of a model. It contains everything the model
+ * runner needs at runtime, so that nothing needs to be recomputed when messages
+ * are dispatched.
+ *
+ * <p>
+ * The snapshot stores the steps of the model as a flat array. The index of a
+ * step in this array is its integer id. It also contains the distinct actors of
+ * the steps, the dispatch index, the compiled flow positions of the flow
+ * steps, and the slots of the distinct conditions. For the state dependent
+ * conditions, it contains the slots that are invalidated when a step runs, or a
+ * state key is touched.
+ *
+ * <p>
+ * The snapshot of a composed model consists of the snapshots of its parts: its
+ * steps are the steps of the parts, one part after the other. The id of a step
+ * in the composed model is the id of the step in its part, plus the number of
+ * steps of the parts before. Its dispatch index merges the indexes of the parts.
+ *
+ * <p>
+ * A snapshot is created once per model version, and shared read-only by all
+ * model runners that run the model.
+ */
+final class CompiledModel {
+  static final int NO_CONDITION_SLOT = -1;
+
+  private final Step[] steps;
+  private final List<Step> stepList;
+  private final Set<AbstractActor> actors;
+  private final Map<String, AbstractActor> nameToActorMap;
+  private final AbstractActor[] runActors;
+  private final DispatchIndex dispatchIndex;
+  private final Model model;
+  private final CompiledFlowPosition[] flowPositions;
+  private final int[] conditionSlots;
+  private final int[] reactWhileSlots;
+  private final int nrOfConditionSlots;
+  private final boolean[] stateDependentSlots;
+  private final int[][] stepIdToTouchedSlots;
+  private final Map<String, int[]> stateKeyToSlots;
+  private final Model[] parts;
+  private final CompiledModel[] compiledParts;
+  private final int[] partOffsets;
+  private final Map<String, UseCase> nameToUseCaseMap;
+
+  CompiledModel(Model model) {
+    this.model = model;
+    this.parts = model.getParts();
+    this.compiledParts = compileParts(parts);
+    this.partOffsets = compilePartOffsets(compiledParts);
+    this.nameToUseCaseMap = compileNameToUseCaseMap(parts);
+    this.steps = parts.length == 0 ? compileSteps(model.getModifiableUseCases()) : composeSteps(compiledParts);
+    this.stepList = Collections.unmodifiableList(Arrays.asList(steps));
+    this.actors = Collections.unmodifiableSet(compileActors(steps));
+    this.nameToActorMap = compileNameToActorMap(actors);
+    this.runActors = compileRunActors(model, actors);
+    this.dispatchIndex = parts.length == 0 ? new DispatchIndex(steps)
+      : new DispatchIndex(steps, partIndexes(compiledParts));
+    this.flowPositions = new CompiledFlowPosition[steps.length];
+    this.conditionSlots = new int[steps.length];
+    this.reactWhileSlots = new int[steps.length];
+    List<Condition> slotConditions = compileConditionSlots(steps, conditionSlots, reactWhileSlots);
+    this.nrOfConditionSlots = slotConditions.size();
+    this.stateDependentSlots = compileStateDependentSlots(slotConditions);
+    this.stepIdToTouchedSlots = compileTouchedSlots(steps, slotConditions);
+    this.stateKeyToSlots = compileStateKeyToSlots(slotConditions);
+  }
+
+  private static Step[] compileSteps(Collection<UseCase> useCases) {
+    List<Step> modelSteps = new ArrayList<>();
+    for (UseCase useCase : useCases) {
+      modelSteps.addAll(useCase.getModifiableSteps());
+    }
+
+    Step[] steps = modelSteps.toArray(new Step[0]);
+    for (int stepId = 0; stepId < steps.length; stepId++) {
+      steps[stepId].setId(stepId);
+    }
+    return steps;
+  }
+
+  private static CompiledModel[] compileParts(Model[] parts) {
+    CompiledModel[] compiledParts = new CompiledModel[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      compiledParts[i] = parts[i].getCompiledModel();
+    }
+    return compiledParts;
+  }
+
+  private static int[] compilePartOffsets(CompiledModel[] compiledParts) {
+    int[] partOffsets = new int[compiledParts.length];
+    int nrOfSteps = 0;
+    for (int i = 0; i < compiledParts.length; i++) {
+      partOffsets[i] = nrOfSteps;
+      nrOfSteps += compiledParts[i].steps.length;
+    }
+    return partOffsets;
+  }
+
+  private static Map<String, UseCase> compileNameToUseCaseMap(Model[] parts) {
+    Map<String, UseCase> nameToUseCaseMap = new LinkedHashMap<>();
+    for (Model part : parts) {
+      for (UseCase useCase : part.getModifiableUseCases()) {
+        ModelElementContainer.saveModelElement(useCase, nameToUseCaseMap);
+      }
+    }
+    return nameToUseCaseMap;
+  }
+
+  // The steps keep the ids they have in their parts
+  private static Step[] composeSteps(CompiledModel[] compiledParts) {
+    List<Step> composedSteps = new ArrayList<>();
+    for (CompiledModel compiledPart : compiledParts) {
+      composedSteps.addAll(compiledPart.stepList);
+    }
+    return composedSteps.toArray(new Step[0]);
+  }
+
+  private static DispatchIndex[] partIndexes(CompiledModel[] compiledParts) {
+    DispatchIndex[] partIndexes = new DispatchIndex[compiledParts.length];
+    for (int i = 0; i < compiledParts.length; i++) {
+      partIndexes[i] = compiledParts[i].dispatchIndex;
+    }
+    return partIndexes;
+  }
+
+  // Each distinct condition instance gets a slot, so that a runner can memoize
+  // its result even if several steps share it. NO_CONDITION_SLOT means no
+  // condition.
+  private static List<Condition> compileConditionSlots(Step[] steps, int[] conditionSlots, int[] reactWhileSlots) {
+    Map<Condition, Integer> conditionToSlot = new IdentityHashMap<>();
+    List<Condition> slotConditions = new ArrayList<>();
+    for (int stepId = 0; stepId < steps.length; stepId++) {
+      Step step = steps[stepId];
+      conditionSlots[stepId] = conditionSlot(conditionToSlot, slotConditions, step.getCondition().orElse(null));
+      Condition reactWhile = step instanceof FlowStep ? ((FlowStep) step).getReactWhile() : null;
+      reactWhileSlots[stepId] = conditionSlot(conditionToSlot, slotConditions, reactWhile);
+    }
+    return slotConditions;
+  }
+
+  private static int conditionSlot(Map<Condition, Integer> conditionToSlot, List<Condition> slotConditions,
+    Condition condition) {
+    if (condition == null) {
+      return NO_CONDITION_SLOT;
+    }
+    Integer slot = conditionToSlot.get(condition);
+    if (slot == null) {
+      slot = slotConditions.size();
+      conditionToSlot.put(condition, slot);
+      slotConditions.add(condition);
+    }
+    return slot;
+  }
+
+  private static boolean[] compileStateDependentSlots(List<Condition> slotConditions) {
+    boolean[] stateDependentSlots = new boolean[slotConditions.size()];
+    for (int slot = 0; slot < stateDependentSlots.length; slot++) {
+      stateDependentSlots[slot] = slotConditions.get(slot) instanceof StateDependentCondition;
+    }
+    return stateDependentSlots;
+  }
+
+  private static int[][] compileTouchedSlots(Step[] steps, List<Condition> slotConditions) {
+    int[][] stepIdToTouchedSlots = new int[steps.length][];
+    for (int stepId = 0; stepId < steps.length; stepId++) {
+      String[] touchedStateKeys = steps[stepId].getTouchedStateKeys();
+      List<Integer> touchedSlots = new ArrayList<>();
+      for (int slot = 0; touchedStateKeys.length > 0 && slot < slotConditions.size(); slot++) {
+        Condition condition = slotConditions.get(slot);
+        if (condition instanceof StateDependentCondition
+          && ((StateDependentCondition) condition).dependsOnAny(touchedStateKeys)) {
+          touchedSlots.add(slot);
+        }
+      }
+      stepIdToTouchedSlots[stepId] = toIntArray(touchedSlots);
+    }
+    return stepIdToTouchedSlots;
+  }
+
+  private static Map<String, int[]> compileStateKeyToSlots(List<Condition> slotConditions) {
+    Map<String, List<Integer>> stateKeyToSlotList = new LinkedHashMap<>();
+    for (int slot = 0; slot < slotConditions.size(); slot++) {
+      Condition condition = slotConditions.get(slot);
+      if (condition instanceof StateDependentCondition) {
+        for (String stateKey : ((StateDependentCondition) condition).getStateKeys()) {
+          stateKeyToSlotList.computeIfAbsent(stateKey, key -> new ArrayList<>()).add(slot);
+        }
+      }
+    }
+
+    Map<String, int[]> stateKeyToSlots = new LinkedHashMap<>();
+    stateKeyToSlotList.forEach((stateKey, slots) -> stateKeyToSlots.put(stateKey, toIntArray(slots)));
+    return stateKeyToSlots;
+  }
+
+  private static int[] toIntArray(List<Integer> integers) {
+    int[] ints = new int[integers.size()];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = integers.get(i);
+    }
+    return ints;
+  }
+
+  private static Set<AbstractActor> compileActors(Step[] steps) {
+    Set<AbstractActor> actors = new LinkedHashSet<>();
+    for (Step step : steps) {
+      AbstractActor[] stepActors = step.getActors();
+      if (stepActors != null) {
+        actors.addAll(Arrays.asList(stepActors));
+      }
+    }
+    return actors;
+  }
+
+  private static Map<String, AbstractActor> compileNameToActorMap(Set<AbstractActor> actors) {
+    Map<String, AbstractActor> nameToActorMap = new LinkedHashMap<>();
+    for (AbstractActor actor : actors) {
+      nameToActorMap.putIfAbsent(actor.getName(), actor);
+    }
+    return nameToActorMap;
+  }
+
+  // The default user is the first run actor, so its id is 0.
+  private static AbstractActor[] compileRunActors(Model model, Set<AbstractActor> actors) {
+    Set<AbstractActor> runActors = new LinkedHashSet<>();
+    runActors.add(model.getUserActor());
+    runActors.add(model.getSystemActor());
+    runActors.addAll(actors);
+    return runActors.toArray(new AbstractActor[0]);
+  }
+
+  Step[] getSteps() {
+    return steps;
+  }
+
+  List<Step> getStepList() {
+    return stepList;
+  }
+
+  Step getStep(int stepId) {
+    return steps[stepId];
+  }
+
+  /**
+   * Returns the id of the specified step in this model. For the steps of a
+   * composed model, that is the id in its part plus the offset of the part.
+   *
+   * @param step the step
+   * @return the id
+   * @throws IllegalArgumentException if the step belongs neither to this model,
+   *                                  nor to one of its parts
+   */
+  int getStepId(Step step) {
+    int stepId = step.getId();
+    Model stepModel = step.getModel();
+    if (stepModel == model) {
+      return stepId;
+    }
+    for (int i = 0; i < parts.length; i++) {
+      if (parts[i] == stepModel) {
+        return partOffsets[i] + stepId;
+      }
+    }
+    throw new IllegalArgumentException("Model doesn't contain step " + step.getName());
+  }
+
+  /**
+   * Returns whether the parts of a composed model still have the snapshots
+   * this snapshot has been composed of.
+   *
+   * @return true if the parts haven't changed, or this isn't a composed model
+   */
+  boolean arePartsCurrent() {
+    for (int i = 0; i < parts.length; i++) {
+      if (parts[i].getCompiledModel() != compiledParts[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  Map<String, UseCase> getNameToUseCaseMap() {
+    return nameToUseCaseMap;
+  }
+
+  Set<AbstractActor> getActors() {
+    return actors;
+  }
+
+  AbstractActor findActor(String actorName) {
+    return nameToActorMap.get(actorName);
+  }
+
+  /**
+   * Returns the id of the specified actor the runner runs as. If the actor is
+   * neither the default user, the system, nor the actor of any step, it can't
+   * make any step react that the default user can't make react. So its id is
+   * the id of the default user.
+   * 
+   * @param runActor the actor the runner runs as
+   * @return the id of the actor
+   */
+  int getRunActorId(AbstractActor runActor) {
+    for (int runActorId = 0; runActorId < runActors.length; runActorId++) {
+      if (runActors[runActorId] == runActor) {
+        return runActorId;
+      }
+    }
+    for (int runActorId = 0; runActorId < runActors.length; runActorId++) {
+      if (runActors[runActorId].equals(runActor)) {
+        return runActorId;
+      }
+    }
+    return 0;
+  }
+
+  AbstractActor getRunActor(int runActorId) {
+    return runActors[runActorId];
+  }
+
+  int getNrOfRunActors() {
+    return runActors.length;
+  }
+
+  int getConditionSlot(int stepId) {
+    return conditionSlots[stepId];
+  }
+
+  int getReactWhileSlot(int stepId) {
+    return reactWhileSlots[stepId];
+  }
+
+  int getNrOfConditionSlots() {
+    return nrOfConditionSlots;
+  }
+
+  boolean isStateDependentSlot(int slot) {
+    return stateDependentSlots[slot];
+  }
+
+  /**
+   * Returns the slots of the state dependent conditions that depend on a state
+   * key the specified step touches.
+   *
+   * @param stepId the id of the step
+   * @return the slots, an empty array if there are none
+   */
+  int[] getTouchedSlots(int stepId) {
+    return stepIdToTouchedSlots[stepId];
+  }
+
+  /**
+   * Returns the slots of the state dependent conditions that depend on the
+   * specified state key.
+   *
+   * @param stateKey the state key
+   * @return the slots, an empty array if there are none
+   */
+  int[] getSlotsOfStateKey(String stateKey) {
+    return stateKeyToSlots.getOrDefault(stateKey, new int[0]);
+  }
+
+  DispatchIndex getDispatchIndex() {
+    return dispatchIndex;
+  }
+
+  /**
+   * Compiles the flow positions of all flow steps. Flow positions refer to
+   * steps by name, so this must only be done after all steps have been created.
+   */
+  void compileFlowPositions() {
+    for (CompiledModel compiledPart : compiledParts) {
+      compiledPart.compileFlowPositions();
+    }
+    for (int i = 0; parts.length == 0 && i < steps.length; i++) {
+      Step step = steps[i];
+      if (step instanceof FlowStep) {
+        getFlowPosition((FlowStep) step);
+      }
+    }
+  }
+
+  /**
+   * Returns the compiled flow position of the specified flow step. If it hasn't
+   * been compiled yet, it is compiled and cached. The compiled flow positions
+   * are immutable, so they can be shared by threads without synchronization.
+   * 
+   * @param flowStep the step of this model
+   * @return the compiled flow position
+   */
+  CompiledFlowPosition getFlowPosition(FlowStep flowStep) {
+    int stepId = flowStep.getId();
+    CompiledFlowPosition flowPosition = flowPositions[stepId];
+    if (flowPosition == null) {
+      flowPosition = CompiledFlowPosition.compile(model, flowStep.getFlowPosition());
+      flowPositions[stepId] = flowPosition;
+    }
+    return flowPosition;
+  }
+}
@@ -11,4 +11,32 @@ package org.requirementsascode;
 @FunctionalInterface
 public interface Condition {
 	boolean evaluate();
+
+	/**
+	 * Declares that the result of the specified condition only depends on the
+	 * state identified by the specified keys. A model runner then caches the
+	 * result across messages, and only evaluates the condition again after a step
+	 * that touches one of the keys has run, or the keys have been touched by
+	 * calling {@link ModelRunner#touch(String...)}.
+	 *
+	 * @param condition the condition
+	 * @param stateKeys the keys of the state the condition depends on
+	 * @return the state dependent condition
+	 * @see org.requirementsascode.builder.StepSystemPart#touches(String...)
+	 */
+	static Condition dependsOn(Condition condition, String... stateKeys) {
+		return new StateDependentCondition(condition, stateKeys);
+	}
+
+	/**
+	 * Declares that the result of the specified condition never changes while the
+	 * model is run. A model runner then only evaluates it once, until the runner
+	 * is restarted.
+	 *
+	 * @param condition the condition
+	 * @return the pure condition
+	 */
+	static Condition pure(Condition condition) {
+		return dependsOn(condition);
+	}
 }
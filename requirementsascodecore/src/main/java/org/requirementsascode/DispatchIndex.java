@@ -0,0 +1,141 @@
+package org.requirementsascode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.requirementsascode.exception.MissingUseCaseStepPart;
+
+/**
+ * Index that maps each concrete message class to the steps that can possibly
+ * react to messages of that class, i.e. the steps whose message class is the
+ * same class, a superclass or an interface of it.
+ *
+ * <p>
+ * The class hierarchy of each message class is resolved only once, the first
+ * time a message of that class is dispatched. After that, the candidate steps
+ * are looked up. The model runner then only needs to evaluate the predicates of
+ * the candidate steps.
+ *
+ * <p>
+ * The index also contains the interrupting steps for each message class, so
+ * that checking whether an interruptable step is interrupted only needs to
+ * look at the interrupting steps that could react instead of it.
+ *
+ * <p>
+ * The index of a composed model merges the indexes of its parts: the candidate
+ * steps for a message class are the candidate steps of the parts, one part
+ * after the other.
+ *
+ * <p>
+ * An index is immutable apart from its cache, and can safely be shared by
+ * several model runners running in different threads.
+ */
+final class DispatchIndex {
+  private static final Class<?> SYSTEM_EVENT_CLASS = ModelRunner.class;
+
+  private static final DispatchIndex[] NO_PART_INDEXES = new DispatchIndex[0];
+
+  private final Step[] steps;
+  private final DispatchIndex[] partIndexes;
+  private final Map<Class<?>, Step[]> messageClassToCandidateSteps;
+  private final Map<Class<?>, Step[]> messageClassToInterruptingSteps;
+
+  DispatchIndex(Step[] steps) {
+    this(steps, NO_PART_INDEXES);
+  }
+
+  DispatchIndex(Step[] steps, DispatchIndex[] partIndexes) {
+    this.steps = steps;
+    this.partIndexes = partIndexes;
+    this.messageClassToCandidateSteps = new ConcurrentHashMap<>();
+    this.messageClassToInterruptingSteps = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the steps that can possibly react to messages of the specified
+   * class, in the order they have been defined in the model.
+   *
+   * @param messageClass the concrete class of the message
+   * @return the candidate steps, in model order. Don't modify the returned array.
+   * @throws MissingUseCaseStepPart if a step of the model has no message class
+   */
+  Step[] getCandidateSteps(Class<?> messageClass) {
+    Step[] candidateSteps = messageClassToCandidateSteps.get(messageClass);
+    if (candidateSteps == null) {
+      candidateSteps = resolveCandidateSteps(messageClass);
+      messageClassToCandidateSteps.putIfAbsent(messageClass, candidateSteps);
+    }
+    return candidateSteps;
+  }
+
+  /**
+   * Returns the interrupting flow steps that can possibly react to messages of
+   * the specified class, in the order they have been defined in the model.
+   *
+   * @param messageClass the class of the message
+   * @return the interrupting candidate steps, in model order. Don't modify the
+   *         returned array.
+   * @throws MissingUseCaseStepPart if a step of the model has no message class
+   */
+  Step[] getInterruptingSteps(Class<?> messageClass) {
+    Step[] interruptingSteps = messageClassToInterruptingSteps.get(messageClass);
+    if (interruptingSteps == null) {
+      interruptingSteps = resolveInterruptingSteps(messageClass);
+      messageClassToInterruptingSteps.putIfAbsent(messageClass, interruptingSteps);
+    }
+    return interruptingSteps;
+  }
+
+  /**
+   * Returns all steps of the index, in the order they have been defined in the
+   * model.
+   *
+   * @return the steps. Don't modify the returned array.
+   */
+  Step[] getSteps() {
+    return steps;
+  }
+
+  private Step[] resolveCandidateSteps(Class<?> messageClass) {
+    List<Step> candidateSteps = new ArrayList<>();
+    if (partIndexes.length > 0) {
+      for (DispatchIndex partIndex : partIndexes) {
+        candidateSteps.addAll(Arrays.asList(partIndex.getCandidateSteps(messageClass)));
+      }
+      return candidateSteps.toArray(new Step[0]);
+    }
+    for (Step step : steps) {
+      if (stepMessageClassIsSameOrSuperclass(step, messageClass)) {
+        candidateSteps.add(step);
+      }
+    }
+    return candidateSteps.toArray(new Step[0]);
+  }
+
+  private Step[] resolveInterruptingSteps(Class<?> messageClass) {
+    List<Step> interruptingSteps = new ArrayList<>();
+    for (Step step : getCandidateSteps(messageClass)) {
+      if (InterruptingFlowStep.class.equals(step.getClass())) {
+        interruptingSteps.add(step);
+      }
+    }
+    return interruptingSteps.toArray(new Step[0]);
+  }
+
+  static boolean stepMessageClassIsSameOrSuperclass(Step step, Class<?> currentMessageClass) {
+    Class<?> stepMessageClass = step.getMessageClass();
+    if (stepMessageClass == null) {
+      throw new MissingUseCaseStepPart(step, "on/user");
+    }
+    boolean result = hasSystemEventClass(currentMessageClass) ? hasSystemEventClass(stepMessageClass)
+      : stepMessageClass.isAssignableFrom(currentMessageClass);
+    return result;
+  }
+
+  static boolean hasSystemEventClass(Class<?> messageClass) {
+    return SYSTEM_EVENT_CLASS.equals(messageClass);
+  }
+}
@@ -1,10 +1,9 @@
 package org.requirementsascode;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.requirementsascode.flowposition.FlowPosition;
 
@@ -19,6 +18,8 @@ import org.requirementsascode.flowposition.FlowPosition;
  */
 public class Flow extends ModelElement{
 	private UseCase useCase;
+	private List<FlowStep> steps;
+	private List<FlowStep> unmodifiableSteps;
 
 	/**
 	 * Creates a flow with the specified name that belongs to the specified use
@@ -30,6 +31,8 @@ public class Flow extends ModelElement{
 	Flow(String name, UseCase useCase) {
 		super(name, useCase.getModel());
 		this.useCase = useCase;
+		this.steps = new ArrayList<>();
+		this.unmodifiableSteps = Collections.unmodifiableList(steps);
 	}
 
 	/**
@@ -48,9 +51,7 @@ public class Flow extends ModelElement{
 	 * @return a collection of the steps
 	 */
 	public List<FlowStep> getSteps() {
-		List<FlowStep> steps = getUseCase().getModifiableSteps().stream().filter(step -> isStepInThisFlow(step))
-				.map(step -> ((FlowStep)step)).collect(Collectors.toList());
-		return Collections.unmodifiableList(steps);
+		return unmodifiableSteps;
 	}
 
 	/**
@@ -60,19 +61,12 @@ public class Flow extends ModelElement{
 	 *         steps.
 	 */
 	public Optional<FlowStep> getFirstStep() {
-		Collection<Step> steps = getUseCase().getModifiableSteps();
-		FlowStep firstStep = null;
-		for (Step step : steps) {
-			if(isStepInThisFlow(step)) {
-				firstStep = (FlowStep)step;
-				break;
-			}
-		}
+		FlowStep firstStep = steps.isEmpty() ? null : steps.get(0);
 		return Optional.ofNullable(firstStep);
 	}
 
-	private boolean isStepInThisFlow(Step step) {
-		return step instanceof FlowStep && this.equals(((FlowStep)step).getFlow());
+	void addStep(FlowStep step) {
+		steps.add(step);
 	}
 
 	/**
@@ -39,20 +39,38 @@ public abstract class FlowStep extends Step{
 		Objects.requireNonNull(flowPosition);
 
 		this.flowPosition = flowPosition;
+		getModel().invalidate();
 	}
 
 	public void orAfter(FlowStep step) {
-		FlowPosition flowPositionAfterStep = flowPosition.orAfter(step.getName(), step.getUseCase());
+		FlowPosition flowPositionAfterStep = flowPosition.orAfter(step);
     setFlowPosition(flowPositionAfterStep);
 	}
 
 	public void setReactWhile(Condition reactWhileCondition) {
 		this.reactWhile = reactWhileCondition;
 		createLoop();
+		getModel().invalidate();
+	}
+
+	/**
+	 * Returns whether the runner is at the right position for this step, by
+	 * looking up the runner's latest step in the compiled flow position.
+	 *
+	 * @param modelRunner the runner
+	 * @return true if the step can follow the runner's latest step
+	 */
+	boolean isRunnerAtRightPosition(ModelRunner modelRunner) {
+		CompiledFlowPosition compiledFlowPosition = getModel().getCompiledModel().getFlowPosition(this);
+		return compiledFlowPosition.test(modelRunner);
+	}
+
+	boolean isReactWhileConditionTrue(ModelRunner modelRunner) {
+		return reactWhile == null || modelRunner.evaluateCondition(this, reactWhile, true);
 	}
 
 	private void createLoop() {
-		getFlowPosition().orAfter(getName(), getUseCase());
+		getFlowPosition().orAfter(this);
 	}
 
 	public Condition getReactWhile() {
@@ -9,18 +9,18 @@ import java.util.function.Predicate;
  *
  */
 public class FlowlessStep extends Step {
+	private final Predicate<ModelRunner> predicate = this::canReact;
+
 	FlowlessStep(String stepName, UseCase useCase, Condition optionalCondition) {
 		super(stepName, useCase, optionalCondition);
 	}
 
 	@Override
 	public Predicate<ModelRunner> getPredicate() {
-		Predicate<ModelRunner> predicate = toPredicate(getConditionOrElseTrue());
 		return predicate;
 	}
 
-	private Condition getConditionOrElseTrue() {
-		Condition condition = getCondition().orElse(() -> true);
-		return condition;
+	private boolean canReact(ModelRunner modelRunner) {
+		return isConditionTrue(modelRunner);
 	}
 }
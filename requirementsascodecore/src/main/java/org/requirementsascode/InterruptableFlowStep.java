@@ -1,6 +1,5 @@
 package org.requirementsascode;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -19,6 +18,8 @@ import org.requirementsascode.flowposition.After;
  * @author b_muth
  */
 public class InterruptableFlowStep extends FlowStep{
+	private final Predicate<ModelRunner> predicate = this::canReactAtRightPosition;
+
 	/**
 	 * Creates unconditional step with the specified name as the last step of the
 	 * specified flow.
@@ -41,38 +42,31 @@ public class InterruptableFlowStep extends FlowStep{
 
   @Override
 	public Predicate<ModelRunner> getPredicate() {
-		Condition reactWhile = getReactWhile();
-
-    Predicate<ModelRunner> predicate = getFlowPosition().and(noStepInterrupts()).and(isConditionTrue());
-    if (reactWhile != null) {
-      predicate = predicate.and(toPredicate(reactWhile));
-    }
+		return predicate;
+	}
 
-    return predicate;
-  }
+	private boolean canReactAtRightPosition(ModelRunner modelRunner) {
+		boolean canReact = isRunnerAtRightPosition(modelRunner) && noStepInterrupts(modelRunner)
+			&& isConditionTrue(modelRunner) && isReactWhileConditionTrue(modelRunner);
+		return canReact;
+	}
 
-	private Predicate<ModelRunner> noStepInterrupts() {
-		return modelRunner -> {
-			Class<?> messageClass = getMessageClass();
+	// Only the interrupting steps that could react to this step's message class
+	// are checked. The runner evaluates each of them at most once per dispatch,
+	// no matter how many interruptable steps are candidates.
+	private boolean noStepInterrupts(ModelRunner modelRunner) {
+		boolean noStepInterrupts = true;
+		if (modelRunner.isRunning()) {
+			Step[] interruptingSteps = getFlow().getModel().getDispatchIndex().getInterruptingSteps(getMessageClass());
 
-			boolean noStepInterrupts = true;
-			if (modelRunner.isRunning()) {
-				Collection<Step> steps = getFlow().getModel().getModifiableSteps();
-				
-				for (Step step : steps) {
-					if(isInterruptingStep(step) && modelRunner.canReactToMessageClass(step, messageClass)) {
-						noStepInterrupts = false;
-						break;
-					}
+			for (Step interruptingStep : interruptingSteps) {
+				if (modelRunner.canReact(interruptingStep)) {
+					noStepInterrupts = false;
+					break;
 				}
 			}
+		}
 
-			return noStepInterrupts;
-		};
-
-	}
-
-	private boolean isInterruptingStep(Step step) {
-		return InterruptingFlowStep.class.equals(step.getClass());
+		return noStepInterrupts;
 	}
 }
@@ -5,31 +5,28 @@ import java.util.function.Predicate;
 import org.requirementsascode.flowposition.FlowPosition;
 
 public class InterruptingFlowStep extends FlowStep {
+	private final Predicate<ModelRunner> predicate = this::canReactAtRightPosition;
+
 	InterruptingFlowStep(String stepName, Flow useCaseFlow, FlowPosition flowPosition, Condition condition) {
 		super(stepName, useCaseFlow, condition);
 		setFlowPosition(flowPosition);
 	}
 
+	@Override
 	public Predicate<ModelRunner> getPredicate() {
-		Predicate<ModelRunner> predicate;
-		Condition reactWhile = getReactWhile();
-
-		predicate = isFlowConditionTrueAndRunnerInDifferentFlow();
-		if (reactWhile != null) {
-			predicate = predicate.and(toPredicate(reactWhile));
-		}
-
 		return predicate;
 	}
 
-  private Predicate<ModelRunner> isFlowConditionTrueAndRunnerInDifferentFlow() {
-    Predicate<ModelRunner> flowCondition = getFlowPosition().and(isRunnerInDifferentFlow()).and(isConditionTrue());
-    return flowCondition;
-  }
+	private boolean canReactAtRightPosition(ModelRunner modelRunner) {
+		boolean canReact = isRunnerAtRightPosition(modelRunner) && isRunnerInDifferentFlow(modelRunner)
+			&& isConditionTrue(modelRunner) && isReactWhileConditionTrue(modelRunner);
+		return canReact;
+	}
 
-	private Predicate<ModelRunner> isRunnerInDifferentFlow() {
-		Predicate<ModelRunner> isRunnerInDifferentFlow = runner -> runner.getLatestFlow()
-				.map(runnerFlow -> !runnerFlow.equals(getFlow())).orElse(true);
+	private boolean isRunnerInDifferentFlow(ModelRunner modelRunner) {
+		Step latestStep = modelRunner.getLatestStepOrNull();
+		boolean isRunnerInDifferentFlow = !(latestStep instanceof FlowStep)
+			|| !((FlowStep) latestStep).getFlow().equals(getFlow());
 		return isRunnerInDifferentFlow;
 	}
 }
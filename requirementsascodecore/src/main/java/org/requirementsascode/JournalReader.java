@@ -0,0 +1,168 @@
+package org.requirementsascode;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Reads the entries of a journal written by a {@link JournalWriter}, one after
+ * the other.
+ *
+ * <p>
+ * The reader is a cursor: {@link #next()} moves it to the next entry, and the
+ * other methods return the parts of the current entry. A message is only
+ * decoded when {@link #getMessage()} is called, so skipping over entries is
+ * cheap.
+ */
+public class JournalReader {
+  private static final int NO_STEP = -1;
+
+  private final ByteBuffer journal;
+  private final MessageCodecs codecs;
+  private int stepId;
+  private int codecId;
+  private int messagePosition;
+  private int messageLength;
+  private long nrOfEntriesRead;
+
+  /**
+   * Creates a reader for the journal contained in the specified buffer, from
+   * its position to its limit. The buffer's position and limit are not changed
+   * by reading.
+   *
+   * @param journal the buffer containing the journal
+   * @param codecs  the codecs that have been used to write the journal, in the
+   *                same order
+   * @throws IllegalArgumentException if the buffer doesn't contain a journal
+   */
+  public JournalReader(ByteBuffer journal, MessageCodec<?>... codecs) {
+    this.journal = Objects.requireNonNull(journal).duplicate();
+    this.codecs = new MessageCodecs(codecs);
+    this.stepId = NO_STEP;
+    if (this.journal.remaining() < 4 || this.journal.getInt() != JournalWriter.HEADER) {
+      throw new IllegalArgumentException("Buffer doesn't contain a journal");
+    }
+  }
+
+  /**
+   * Creates a reader for the journal in the specified file. The file is memory
+   * mapped, so the journal isn't copied to the heap, and only the messages
+   * that are requested are decoded.
+   *
+   * @param file   the file containing the journal
+   * @param codecs the codecs that have been used to write the journal, in the
+   *               same order
+   * @return the reader
+   * @throws IOException              if the file can't be mapped
+   * @throws IllegalArgumentException if the file doesn't contain a journal, or
+   *                                  is bigger than 2 GB
+   */
+  public static JournalReader open(Path file, MessageCodec<?>... codecs) throws IOException {
+    try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = fileChannel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Journal file is bigger than 2 GB: " + file);
+      }
+      ByteBuffer journal = fileChannel.map(MapMode.READ_ONLY, 0, size);
+      return new JournalReader(journal, codecs);
+    }
+  }
+
+  /**
+   * Moves the reader to the next entry.
+   *
+   * @return true if there is a next entry, false if the end of the journal has
+   *         been reached
+   * @throws IllegalStateException if the journal ends within an entry, e.g.
+   *                               because it hasn't been flushed completely
+   */
+  public boolean next() {
+    if (!journal.hasRemaining()) {
+      stepId = NO_STEP;
+      return false;
+    }
+
+    try {
+      stepId = Varint.get(journal);
+      codecId = Varint.get(journal);
+      if (codecId == MessageCodecs.NO_MESSAGE) {
+        messageLength = 0;
+      } else {
+        messageLength = Varint.get(journal);
+        messagePosition = journal.position();
+        if (messageLength > journal.remaining()) {
+          throw new BufferUnderflowException();
+        }
+        journal.position(messagePosition + messageLength);
+      }
+    } catch (BufferUnderflowException e) {
+      stepId = NO_STEP;
+      throw new IllegalStateException("Journal is truncated after entry " + nrOfEntriesRead);
+    }
+    nrOfEntriesRead++;
+    return true;
+  }
+
+  /**
+   * Returns the step of the current entry.
+   *
+   * @param model the model that has been run while writing the journal
+   * @return the step
+   * @throws IllegalArgumentException if the model doesn't contain the step
+   */
+  public Step getStep(Model model) {
+    Step[] steps = model.getCompiledModel().getSteps();
+    int currentStepId = getStepId();
+    if (currentStepId >= steps.length) {
+      throw new IllegalArgumentException("Model doesn't contain step with id " + currentStepId);
+    }
+    return steps[currentStepId];
+  }
+
+  int getStepId() {
+    if (stepId == NO_STEP) {
+      throw new IllegalStateException("Reader isn't positioned at an entry");
+    }
+    return stepId;
+  }
+
+  /**
+   * Returns whether the step of the current entry has been triggered by a
+   * message, or by an autonomous system reaction.
+   *
+   * @return true if the entry contains a message, false otherwise
+   */
+  public boolean hasMessage() {
+    getStepId();
+    return codecId != MessageCodecs.NO_MESSAGE;
+  }
+
+  /**
+   * Decodes and returns the message of the current entry.
+   *
+   * @return the message, or null if the entry doesn't contain a message
+   */
+  public Object getMessage() {
+    if (!hasMessage()) {
+      return null;
+    }
+    ByteBuffer encodedMessage = journal.duplicate();
+    encodedMessage.limit(messagePosition + messageLength);
+    encodedMessage.position(messagePosition);
+    return codecs.getCodec(codecId).decode(encodedMessage.slice());
+  }
+
+  /**
+   * Returns the number of entries read so far.
+   *
+   * @return the number of entries
+   */
+  public long getNrOfEntriesRead() {
+    return nrOfEntriesRead;
+  }
+}
@@ -0,0 +1,145 @@
+package org.requirementsascode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Replays a journal written by a {@link JournalWriter}, to rebuild the state of
+ * a model runner.
+ *
+ * <p>
+ * {@link #replay(JournalReader)} decodes the messages of the journal, and
+ * passes them to the runner in batches, so the system reactions are run again.
+ * The steps that have been triggered by the runner itself, e.g. by a published
+ * event, are not journaled with their message, and are run again by the
+ * runner.
+ *
+ * <p>
+ * {@link #fastForward(JournalReader)} doesn't decode any messages, and doesn't
+ * run any system reactions. It only sets the latest step of the runner to the
+ * latest step of the journal. Use it when the outcome of the system reactions
+ * has been persisted elsewhere. To fast-forward over the first entries, and
+ * replay the rest, use {@link #fastForward(JournalReader, long)} followed by
+ * {@link #replay(JournalReader)} with the same reader.
+ *
+ * <p>
+ * The runner must run the model that has been run while writing the journal,
+ * or a model that defines the same steps in the same order.
+ */
+public class JournalReplayer {
+  static final int DEFAULT_BATCH_SIZE = 1024;
+
+  private final ModelRunner modelRunner;
+  private final int batchSize;
+  private final List<Object> batch;
+  private final List<Object> publishedEvents;
+
+  /**
+   * Creates a replayer for the specified runner.
+   *
+   * @param modelRunner the runner that has run the model
+   */
+  public JournalReplayer(ModelRunner modelRunner) {
+    this(modelRunner, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a replayer for the specified runner, that passes at most the
+   * specified number of messages to the runner at once.
+   *
+   * @param modelRunner the runner that has run the model
+   * @param batchSize   the maximum number of messages per batch
+   * @throws IllegalArgumentException if the batch size isn't positive
+   */
+  public JournalReplayer(ModelRunner modelRunner, int batchSize) {
+    this.modelRunner = Objects.requireNonNull(modelRunner);
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
+    this.publishedEvents = new ArrayList<>();
+  }
+
+  /**
+   * Passes the messages of the remaining entries of the journal to the runner,
+   * which reacts to them.
+   *
+   * @param journalReader the reader of the journal
+   * @return the number of entries read
+   * @throws IllegalStateException if the runner hasn't run a model yet
+   */
+  public long replay(JournalReader journalReader) {
+    Objects.requireNonNull(journalReader);
+    requireModel();
+
+    long nrOfEntries = 0;
+    while (journalReader.next()) {
+      nrOfEntries++;
+      if (journalReader.hasMessage()) {
+        batch.add(journalReader.getMessage());
+        if (batch.size() == batchSize) {
+          reactToBatch();
+        }
+      }
+    }
+    reactToBatch();
+    return nrOfEntries;
+  }
+
+  private void reactToBatch() {
+    try {
+      modelRunner.reactToBatch(batch, publishedEvents);
+    } finally {
+      batch.clear();
+      publishedEvents.clear();
+    }
+  }
+
+  /**
+   * Skips the remaining entries of the journal, and sets the latest step of the
+   * runner to the step of the last entry.
+   *
+   * @param journalReader the reader of the journal
+   * @return the number of entries read
+   * @throws IllegalStateException    if the runner hasn't run a model yet
+   * @throws IllegalArgumentException if the model doesn't contain a step of the
+   *                                  journal
+   */
+  public long fastForward(JournalReader journalReader) {
+    return fastForward(journalReader, Long.MAX_VALUE);
+  }
+
+  /**
+   * Skips at most the specified number of entries of the journal, and sets the
+   * latest step of the runner to the step of the last skipped entry.
+   *
+   * @param journalReader the reader of the journal
+   * @param nrOfEntries   the maximum number of entries to skip
+   * @return the number of entries read
+   * @throws IllegalStateException    if the runner hasn't run a model yet
+   * @throws IllegalArgumentException if the model doesn't contain a step of the
+   *                                  journal
+   */
+  public long fastForward(JournalReader journalReader, long nrOfEntries) {
+    Objects.requireNonNull(journalReader);
+    Model model = requireModel();
+
+    long nrOfEntriesRead = 0;
+    Step latestStep = null;
+    while (nrOfEntriesRead < nrOfEntries && journalReader.next()) {
+      nrOfEntriesRead++;
+      latestStep = journalReader.getStep(model);
+    }
+    if (latestStep != null) {
+      modelRunner.setLatestStep(latestStep);
+    }
+    return nrOfEntriesRead;
+  }
+
+  private Model requireModel() {
+    return modelRunner.getModel()
+      .orElseThrow(() -> new IllegalStateException("Model runner hasn't run a model yet"));
+  }
+}
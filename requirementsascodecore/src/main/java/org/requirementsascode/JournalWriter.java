@@ -0,0 +1,182 @@
+package org.requirementsascode;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Writes the steps run by a model runner, and the messages that caused them to
+ * run, to a journal in a compact binary format.
+ *
+ * <p>
+ * Start writing with {@link ModelRunner#startJournaling(JournalWriter)}. The
+ * entries are buffered, and written to the channel when the buffer is full,
+ * when {@link #flush()} is called, or when the writer is closed. So the steps
+ * of a long running session can be persisted without keeping the messages on
+ * the heap. Read the journal with a {@link JournalReader}.
+ *
+ * <p>
+ * The journal starts with a 4 byte header. Each entry consists of the id of the
+ * step, the id of the message codec (0 if the step has been triggered without a
+ * message, or by a message the runner published itself), and, if there is a
+ * message, the length of the encoded message and the encoded message. Ids and lengths are encoded as varints, so that they
+ * usually take a single byte. The id of a codec is its position in the array
+ * of codecs passed to the constructor, starting at 1. So the reader must use
+ * the same codecs, in the same order.
+ *
+ * <p>
+ * The step ids are only valid for the model that has been run while writing
+ * the journal, or a model that defines the same steps in the same order.
+ */
+public class JournalWriter implements Closeable, Flushable {
+  static final int HEADER = 0x52414A31;
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  private static final int INITIAL_MESSAGE_BUFFER_SIZE = 256;
+
+  private final WritableByteChannel channel;
+  private final MessageCodecs codecs;
+  private ByteBuffer buffer;
+  private ByteBuffer messageBuffer;
+  private long nrOfEntries;
+  private boolean isClosed;
+
+  /**
+   * Creates a writer that writes a journal to the specified channel.
+   *
+   * @param channel the channel to write to
+   * @param codecs  the codecs for the messages. Each message must be encodable
+   *                by one of them.
+   */
+  public JournalWriter(WritableByteChannel channel, MessageCodec<?>... codecs) {
+    this.channel = Objects.requireNonNull(channel);
+    this.codecs = new MessageCodecs(codecs);
+    this.buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+    this.messageBuffer = ByteBuffer.allocate(INITIAL_MESSAGE_BUFFER_SIZE);
+    buffer.putInt(HEADER);
+  }
+
+  /**
+   * Creates a writer that writes a journal to the specified file. If the file
+   * exists, it is overwritten.
+   *
+   * @param file   the file to write to
+   * @param codecs the codecs for the messages
+   * @return the writer
+   * @throws IOException if the file can't be opened
+   */
+  public static JournalWriter create(Path file, MessageCodec<?>... codecs) throws IOException {
+    FileChannel fileChannel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+    return new JournalWriter(fileChannel, codecs);
+  }
+
+  /**
+   * Appends an entry to the journal.
+   *
+   * @param stepId  the id of the step that has been run
+   * @param message the message that caused the step to run, or null
+   * @throws IllegalArgumentException if there is no codec for the message
+   * @throws UncheckedIOException     if writing to the channel fails
+   */
+  void append(int stepId, Object message) {
+    if (isClosed) {
+      throw new IllegalStateException("Journal writer has been closed");
+    }
+
+    int codecId = MessageCodecs.NO_MESSAGE;
+    if (message != null) {
+      codecId = codecs.getCodecId(message.getClass());
+      encode(codecs.getCodec(codecId), message);
+    }
+
+    try {
+      ensureRemaining(3 * Varint.MAX_LENGTH + messageBuffer.remaining());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Varint.put(buffer, stepId);
+    Varint.put(buffer, codecId);
+    if (codecId != MessageCodecs.NO_MESSAGE) {
+      Varint.put(buffer, messageBuffer.remaining());
+      buffer.put(messageBuffer);
+    }
+    nrOfEntries++;
+  }
+
+  // Leaves the encoded message between position and limit of the message buffer
+  private void encode(MessageCodec<Object> codec, Object message) {
+    while (true) {
+      messageBuffer.clear();
+      try {
+        codec.encode(message, messageBuffer);
+        messageBuffer.flip();
+        return;
+      } catch (BufferOverflowException e) {
+        messageBuffer = ByteBuffer.allocate(messageBuffer.capacity() * 2);
+      }
+    }
+  }
+
+  private void ensureRemaining(int nrOfBytes) throws IOException {
+    if (buffer.remaining() < nrOfBytes) {
+      writeBuffer();
+      if (buffer.capacity() < nrOfBytes) {
+        buffer = ByteBuffer.allocate(nrOfBytes);
+      }
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Returns the number of entries appended to the journal.
+   *
+   * @return the number of entries
+   */
+  public long getNrOfEntries() {
+    return nrOfEntries;
+  }
+
+  /**
+   * Writes the buffered entries to the channel.
+   *
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void flush() throws IOException {
+    writeBuffer();
+  }
+
+  /**
+   * Writes the buffered entries to the channel, and closes it.
+   *
+   * @throws IOException if writing or closing fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      try {
+        writeBuffer();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
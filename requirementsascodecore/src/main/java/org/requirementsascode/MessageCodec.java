@@ -0,0 +1,77 @@
+package org.requirementsascode;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Encodes and decodes the messages of a message class, for writing them to a
+ * journal, and reading them back.
+ *
+ * @see JournalWriter
+ * @see JournalReader
+ *
+ * @param <T> the type of messages
+ */
+public interface MessageCodec<T> {
+  /**
+   * Returns the class of messages encoded by this codec. The codec is used for
+   * messages of the class and its subclasses.
+   *
+   * @return the message class
+   */
+  Class<T> getMessageClass();
+
+  /**
+   * Encodes the specified message into the buffer. If the buffer doesn't have
+   * enough space, throw a {@link java.nio.BufferOverflowException}. The message
+   * is then encoded again, into a bigger buffer.
+   *
+   * @param message the message to encode
+   * @param buffer  the buffer to encode the message into
+   */
+  void encode(T message, ByteBuffer buffer);
+
+  /**
+   * Decodes a message from the specified buffer, that contains exactly the bytes
+   * of the encoded message.
+   *
+   * @param buffer the buffer to decode the message from
+   * @return the decoded message
+   */
+  T decode(ByteBuffer buffer);
+
+  /**
+   * Creates a codec from the specified functions.
+   *
+   * @param <T>          the type of messages
+   * @param messageClass the class of messages encoded by the codec
+   * @param encoder      encodes a message into a buffer
+   * @param decoder      decodes a message from a buffer
+   * @return the codec
+   */
+  static <T> MessageCodec<T> of(Class<T> messageClass, BiConsumer<T, ByteBuffer> encoder,
+    Function<ByteBuffer, T> decoder) {
+    Objects.requireNonNull(messageClass);
+    Objects.requireNonNull(encoder);
+    Objects.requireNonNull(decoder);
+
+    return new MessageCodec<T>() {
+      @Override
+      public Class<T> getMessageClass() {
+        return messageClass;
+      }
+
+      @Override
+      public void encode(T message, ByteBuffer buffer) {
+        encoder.accept(message, buffer);
+      }
+
+      @Override
+      public T decode(ByteBuffer buffer) {
+        return decoder.apply(buffer);
+      }
+    };
+  }
+}
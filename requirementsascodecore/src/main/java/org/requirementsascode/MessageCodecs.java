@@ -0,0 +1,58 @@
+package org.requirementsascode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The codecs of a journal. The id of a codec is its index in the array of
+ * codecs, plus 1. Id 0 means that an entry has no message.
+ */
+final class MessageCodecs {
+  static final int NO_MESSAGE = 0;
+
+  private final MessageCodec<?>[] codecs;
+  private final Map<Class<?>, Integer> messageClassToCodecId;
+
+  MessageCodecs(MessageCodec<?>[] codecs) {
+    this.codecs = Objects.requireNonNull(codecs).clone();
+    this.messageClassToCodecId = new HashMap<>();
+    for (MessageCodec<?> codec : this.codecs) {
+      Objects.requireNonNull(codec);
+    }
+  }
+
+  /**
+   * Returns the id of the first codec whose message class is the same class or
+   * a superclass of the specified class. The result is cached per class.
+   *
+   * @param messageClass the concrete class of a message
+   * @return the codec id
+   * @throws IllegalArgumentException if there is no codec for the class
+   */
+  int getCodecId(Class<?> messageClass) {
+    Integer codecId = messageClassToCodecId.get(messageClass);
+    if (codecId == null) {
+      codecId = resolveCodecId(messageClass);
+      messageClassToCodecId.put(messageClass, codecId);
+    }
+    return codecId;
+  }
+
+  private int resolveCodecId(Class<?> messageClass) {
+    for (int codecIndex = 0; codecIndex < codecs.length; codecIndex++) {
+      if (codecs[codecIndex].getMessageClass().isAssignableFrom(messageClass)) {
+        return codecIndex + 1;
+      }
+    }
+    throw new IllegalArgumentException("No codec for message class " + messageClass.getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  MessageCodec<Object> getCodec(int codecId) {
+    if (codecId <= NO_MESSAGE || codecId > codecs.length) {
+      throw new IllegalStateException("Unknown codec id " + codecId);
+    }
+    return (MessageCodec<Object>) codecs[codecId - 1];
+  }
+}
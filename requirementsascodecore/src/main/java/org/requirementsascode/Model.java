@@ -10,12 +10,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.requirementsascode.builder.ModelBuilder;
+import org.requirementsascode.exception.ElementAlreadyInModel;
 import org.requirementsascode.exception.NoSuchElementInModel;
 
 /**
@@ -32,14 +32,23 @@ import org.requirementsascode.exception.NoSuchElementInModel;
  * @author b_muth
  */
 public class Model{
+	private static final Model[] NO_PARTS = new Model[0];
+
 	private Map<String, UseCase> nameToUseCaseMap;
 	private AbstractActor userActor;
 	private AbstractActor systemActor;
+	private final Model[] parts;
+	private volatile CompiledModel compiledModel;
 
 	private Model() {
+		this(NO_PARTS);
+	}
+
+	private Model(Model[] parts) {
 		this.nameToUseCaseMap = new LinkedHashMap<>();
 		this.userActor = new UserActor();
 		this.systemActor = new SystemActor();
+		this.parts = parts;
 	}
 
 	/**
@@ -52,6 +61,44 @@ public class Model{
 		return new ModelBuilder(new Model());
 	}
 
+	/**
+	 * Composes a model of the specified models, e.g. one model per bounded
+	 * context, without building it again. The composed model contains the use
+	 * cases of the parts, in the order of the parts. A model runner that runs it
+	 * reacts to the messages that any of the parts reacts to.
+	 *
+	 * <p>
+	 * The use cases and steps aren't copied, and their flow positions aren't
+	 * resolved again. Each step still belongs to the model it has been built in.
+	 * The compiled snapshot of the composed model consists of the steps and
+	 * dispatch indexes of the parts' snapshots. It is created again if a part
+	 * changes, so the composed model always contains the current use cases of
+	 * its parts.
+	 *
+	 * <p>
+	 * A model runner evaluates the conditions of a composed model's steps each
+	 * time they're checked, as its memoizing and caching of conditions only
+	 * applies to the steps of the model it runs itself.
+	 *
+	 * @param models the parts, which may be composed models themselves
+	 * @return the composed model
+	 * @throws ElementAlreadyInModel if several parts contain a use case with the
+	 *                               same name
+	 */
+	public static Model compose(Model... models) {
+		Objects.requireNonNull(models);
+		List<Model> leafParts = new ArrayList<>();
+		for (Model model : models) {
+			Objects.requireNonNull(model);
+			leafParts.addAll(model.isComposed() ? Arrays.asList(model.parts) : Collections.singletonList(model));
+		}
+
+		Model composedModel = new Model(leafParts.toArray(NO_PARTS));
+		// Detects use case name collisions
+		composedModel.getCompiledModel();
+		return composedModel;
+	}
+
 	/**
 	 * Checks whether this model contains the specified actor.
 	 *
@@ -71,14 +118,18 @@ public class Model{
 	 * @return true if this model contains the specified use case, false otherwise
 	 */
 	public boolean hasUseCase(String useCaseName) {
-		boolean hasUseCase = hasModelElement(useCaseName, nameToUseCaseMap);
+		boolean hasUseCase = hasModelElement(useCaseName, getNameToUseCaseMap());
 		return hasUseCase;
 	}
 
 	public UseCase newUseCase(String useCaseName) {
 		Objects.requireNonNull(useCaseName);
+		if (isComposed()) {
+			throw new UnsupportedOperationException("Use cases can't be added to a composed model, only to its parts");
+		}
 		UseCase useCase = new UseCase(useCaseName, this);
 		saveModelElement(useCase, nameToUseCaseMap);
+		invalidate();
 		return useCase;
 	}
 
@@ -92,11 +143,10 @@ public class Model{
 	 */
 	public AbstractActor findActor(String actorName) {
 	  Objects.requireNonNull(actorName);
-		AbstractActor foundActor = getModifiableSteps().stream()
-			.flatMap(s -> Arrays.stream(s.getActors()))
-			.filter(act -> actorName.equals(act.getName()))
-			.findFirst()
-			.orElseThrow(() -> new NoSuchElementInModel(actorName));
+		AbstractActor foundActor = getCompiledModel().findActor(actorName);
+		if (foundActor == null) {
+			throw new NoSuchElementInModel(actorName);
+		}
 		return foundActor;
 	}
 
@@ -109,7 +159,7 @@ public class Model{
 	 *                              found in the model
 	 */
 	public UseCase findUseCase(String useCaseName) {
-		UseCase useCase = findModelElement(useCaseName, nameToUseCaseMap);
+		UseCase useCase = findModelElement(useCaseName, getNameToUseCaseMap());
 		return useCase;
 	}
 
@@ -119,10 +169,7 @@ public class Model{
 	 * @return the actors
 	 */
 	public Collection<AbstractActor> getActors() {
-		Set<AbstractActor> actors = getModifiableSteps().stream()
-			.flatMap(s -> Arrays.stream(s.getActors()))
-			.collect(Collectors.toSet());
-		return Collections.unmodifiableCollection(actors);
+		return getCompiledModel().getActors();
 	}
 
 	/**
@@ -136,7 +183,12 @@ public class Model{
 	}
 
 	Collection<UseCase> getModifiableUseCases() {
-		return getModelElements(nameToUseCaseMap);
+		return getModelElements(getNameToUseCaseMap());
+	}
+
+	// The use cases of a composed model are those of its parts
+	private Map<String, UseCase> getNameToUseCaseMap() {
+		return isComposed() ? getCompiledModel().getNameToUseCaseMap() : nameToUseCaseMap;
 	}
 
 	/**
@@ -145,19 +197,58 @@ public class Model{
 	 * @return the use steps
 	 */
 	public Collection<Step> getSteps() {
-		Collection<Step> modifiableSteps = getModifiableSteps();
-		return Collections.unmodifiableCollection(modifiableSteps);
+		return getCompiledModel().getStepList();
 	}
 
-	Collection<Step> getModifiableSteps() {
-		Collection<UseCase> modifiableUseCases = getModifiableUseCases();
-		Collection<Step> modifiableSteps = new ArrayList<>();
-		
-		for (UseCase useCase : modifiableUseCases) {
-			Collection<Step> useCaseSteps = useCase.getModifiableSteps();
-			modifiableSteps.addAll(useCaseSteps);
+	/**
+	 * Compiles the model into a read-only snapshot that contains everything the
+	 * model runner needs for dispatching messages: the steps as a flat array with
+	 * integer step ids, the actors, the index of the steps that can react to a
+	 * message class, and the flow positions of the steps as tables of the step
+	 * ids they can follow. The snapshot is shared by all model runners that run
+	 * this model.
+	 * 
+	 * <p>
+	 * Building a model doesn't compile it. The snapshot is created lazily, when
+	 * it's used first, and the flow position of a step is compiled when it's
+	 * checked first. Calling this method does that work ahead of time, so that
+	 * it isn't done while the first messages are dispatched, e.g. before sharing
+	 * the model with runners in other threads.
+	 * 
+	 * <p>
+	 * If the model is changed afterwards, the snapshot is discarded, and compiled
+	 * again when it is needed next.
+	 *
+	 * @return this model
+	 */
+	public Model compile() {
+		getCompiledModel().compileFlowPositions();
+		return this;
+	}
+
+	CompiledModel getCompiledModel() {
+		CompiledModel compiled = compiledModel;
+		if (compiled == null || parts.length > 0 && !compiled.arePartsCurrent()) {
+			compiled = new CompiledModel(this);
+			compiledModel = compiled;
 		}
-		return modifiableSteps;
+		return compiled;
+	}
+
+	DispatchIndex getDispatchIndex() {
+		return getCompiledModel().getDispatchIndex();
+	}
+
+	boolean isComposed() {
+		return parts.length > 0;
+	}
+
+	Model[] getParts() {
+		return parts;
+	}
+
+	void invalidate() {
+		compiledModel = null;
 	}
 
 	/**
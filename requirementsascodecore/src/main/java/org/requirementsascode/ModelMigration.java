@@ -0,0 +1,192 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+
+/**
+ * Migrates model runners and session states from one version of a model to
+ * another, without restarting or replaying them. Use it to deploy changed
+ * behavior while sessions are running.
+ *
+ * <p>
+ * A step of the old model is mapped to the step of the new model that has the
+ * same name, in the use case with the same name. An actor is mapped to the
+ * actor with the same name. The mapping is computed once, as a table of step
+ * ids and actor ids. After that, migrating a state only looks up its ids. So
+ * you can migrate a very large number of sessions in a single pass, and run
+ * them with a {@link SharedModelRunner} for the new model afterwards:
+ *
+ * <pre>
+ * ModelMigration migration = ModelMigration.between(oldModel, newModel);
+ * for (ModelRunnerState state : sessionStates) {
+ *   migration.migrate(state);
+ * }
+ * SharedModelRunner newSharedModelRunner = new SharedModelRunner(newModel);
+ * </pre>
+ *
+ * <p>
+ * A migration is immutable, and can be used by several threads at the same
+ * time. It becomes invalid if one of the models is changed after it has been
+ * created.
+ */
+public final class ModelMigration {
+  private static final int NO_COUNTERPART = -2;
+
+  private final Model fromModel;
+  private final Model toModel;
+  private final CompiledModel fromCompiledModel;
+  private final CompiledModel toCompiledModel;
+  private final int[] fromStepIdToStepId;
+  private final int[] fromRunActorIdToRunActorId;
+  private final boolean isComplete;
+
+  private ModelMigration(Model fromModel, Model toModel) {
+    this.fromModel = fromModel;
+    this.toModel = toModel;
+    this.fromCompiledModel = fromModel.getCompiledModel();
+    this.toCompiledModel = toModel.getCompiledModel();
+    this.fromStepIdToStepId = mapStepIds(fromCompiledModel, toModel, toCompiledModel);
+    this.fromRunActorIdToRunActorId = mapRunActorIds(fromCompiledModel, toCompiledModel);
+    this.isComplete = isEachStepMapped(fromStepIdToStepId);
+  }
+
+  /**
+   * Creates the migration from the specified old version of a model to the
+   * specified new version.
+   *
+   * @param fromModel the model the runners and sessions currently run
+   * @param toModel   the model they are migrated to
+   * @return the migration
+   */
+  public static ModelMigration between(Model fromModel, Model toModel) {
+    Objects.requireNonNull(fromModel);
+    Objects.requireNonNull(toModel);
+    return new ModelMigration(fromModel, toModel);
+  }
+
+  private static int[] mapStepIds(CompiledModel fromCompiledModel, Model toModel, CompiledModel toCompiledModel) {
+    Step[] fromSteps = fromCompiledModel.getSteps();
+    int[] fromStepIdToStepId = new int[fromSteps.length];
+    for (int fromStepId = 0; fromStepId < fromSteps.length; fromStepId++) {
+      Step toStep = findCounterpart(fromSteps[fromStepId], toModel);
+      fromStepIdToStepId[fromStepId] = toStep == null ? NO_COUNTERPART : toCompiledModel.getStepId(toStep);
+    }
+    return fromStepIdToStepId;
+  }
+
+  private static Step findCounterpart(Step fromStep, Model toModel) {
+    String useCaseName = fromStep.getUseCase().getName();
+    if (!toModel.hasUseCase(useCaseName)) {
+      return null;
+    }
+    UseCase toUseCase = toModel.findUseCase(useCaseName);
+    return toUseCase.hasStep(fromStep.getName()) ? toUseCase.findStep(fromStep.getName()) : null;
+  }
+
+  // An actor the new model doesn't contain is mapped to the default user,
+  // as for a runner that runs as an unknown actor.
+  private static int[] mapRunActorIds(CompiledModel fromCompiledModel, CompiledModel toCompiledModel) {
+    int[] fromRunActorIdToRunActorId = new int[fromCompiledModel.getNrOfRunActors()];
+    for (int fromRunActorId = 0; fromRunActorId < fromRunActorIdToRunActorId.length; fromRunActorId++) {
+      AbstractActor fromRunActor = fromCompiledModel.getRunActor(fromRunActorId);
+      fromRunActorIdToRunActorId[fromRunActorId] = toCompiledModel.getRunActorId(fromRunActor);
+    }
+    return fromRunActorIdToRunActorId;
+  }
+
+  private static boolean isEachStepMapped(int[] fromStepIdToStepId) {
+    for (int stepId : fromStepIdToStepId) {
+      if (stepId == NO_COUNTERPART) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether each step of the old model has a counterpart in the new
+   * model. If so, every state of the old model can be migrated. Otherwise,
+   * migrating a state whose latest step has been removed fails.
+   *
+   * @return true if each step can be migrated, false otherwise
+   */
+  public boolean isComplete() {
+    return isComplete;
+  }
+
+  /**
+   * Returns whether the specified state can be migrated, i.e. whether its latest
+   * step has a counterpart in the new model.
+   *
+   * @param state the state of a session of the old model
+   * @return true if the state can be migrated, false otherwise
+   * @throws IllegalArgumentException if the state doesn't match the old model
+   * @throws IllegalStateException    if one of the models has changed since the
+   *                                  migration has been created
+   */
+  public boolean canMigrate(ModelRunnerState state) {
+    Objects.requireNonNull(state);
+    requireCurrentModels();
+    requireStateOfFromModel(state);
+    int fromStepId = state.getLatestStepId();
+    return fromStepId == ModelRunnerState.NO_STEP || fromStepIdToStepId[fromStepId] != NO_COUNTERPART;
+  }
+
+  /**
+   * Migrates the specified state of a session of the old model to the new model,
+   * in place. The running flag is kept. If the migration fails, the state isn't
+   * changed.
+   *
+   * @param state the state of a session of the old model
+   * @return the migrated state, for chaining
+   * @throws IllegalArgumentException if the state doesn't match the old model,
+   *                                  or its latest step has no counterpart in the
+   *                                  new model
+   * @throws IllegalStateException    if one of the models has changed since the
+   *                                  migration has been created
+   */
+  public ModelRunnerState migrate(ModelRunnerState state) {
+    if (!canMigrate(state)) {
+      Step fromStep = fromCompiledModel.getStep(state.getLatestStepId());
+      throw new IllegalArgumentException("New model doesn't contain step " + fromStep.getName() + " of use case "
+        + fromStep.getUseCase().getName());
+    }
+    int fromStepId = state.getLatestStepId();
+    state.setLatestStepId(fromStepId == ModelRunnerState.NO_STEP ? ModelRunnerState.NO_STEP
+      : fromStepIdToStepId[fromStepId]);
+    state.setRunActorId(fromRunActorIdToRunActorId[state.getRunActorId()]);
+    return state;
+  }
+
+  private void requireCurrentModels() {
+    if (fromModel.getCompiledModel() != fromCompiledModel || toModel.getCompiledModel() != toCompiledModel) {
+      throw new IllegalStateException("Model has changed since the migration has been created");
+    }
+  }
+
+  private void requireStateOfFromModel(ModelRunnerState state) {
+    int latestStepId = state.getLatestStepId();
+    int runActorId = state.getRunActorId();
+    if (latestStepId < ModelRunnerState.NO_STEP || latestStepId >= fromStepIdToStepId.length || runActorId < 0
+      || runActorId >= fromRunActorIdToRunActorId.length) {
+      throw new IllegalArgumentException("State doesn't match the model migrated from");
+    }
+  }
+
+  /**
+   * Returns the model the runners and sessions are migrated from.
+   *
+   * @return the old model
+   */
+  public Model getFromModel() {
+    return fromModel;
+  }
+
+  /**
+   * Returns the model the runners and sessions are migrated to.
+   *
+   * @return the new model
+   */
+  public Model getToModel() {
+    return toModel;
+  }
+}
@@ -1,21 +1,27 @@
 package org.requirementsascode;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import org.requirementsascode.dispatch.Dispatcher;
 import org.requirementsascode.exception.InfiniteRepetition;
 import org.requirementsascode.exception.MissingUseCaseStepPart;
 import org.requirementsascode.exception.MoreThanOneStepCanReact;
 import org.requirementsascode.exception.NestedCallOfReactTo;
+import org.requirementsascode.metrics.Instrumentation;
 
 /**
  * A model runner is a highly configurable controller that receives messages and
@@ -23,10 +29,21 @@ import org.requirementsascode.exception.NestedCallOfReactTo;
  *
  * <p>
  * The runner is configured by the model it owns. Each real user needs an
- * instance of a runner, as the runner determines the user journey.
+ * instance of a runner, as the runner determines the user journey. If you need
+ * to run a very large number of user journeys on the same model, use a
+ * {@link SharedModelRunner} instead.
  */
 public class ModelRunner {
-  private static final Class<?> SYSTEM_EVENT_CLASS = ModelRunner.class;
+  /**
+   * The maximum number of steps the runner runs for a single message by default.
+   * 
+   * @see #limitStepsTo(int)
+   */
+  public static final int DEFAULT_STEP_LIMIT = 100_000;
+
+  // Marks the end of a step's system reaction on the pending messages. The
+  // exceptions thrown before it's popped are handled by that step.
+  private static final Object END_OF_SYSTEM_REACTION = new Object();
 
   private AbstractActor owningActor;
   private AbstractActor runActor;
@@ -34,20 +51,52 @@ public class ModelRunner {
   private Model model;
   private Step latestStep;
   private Object latestPublishedEvent;
+  private Collection<Object> publishedEventsOfBatch;
   private boolean isRunning;
   private StepToBeRun stepToBeRun;
   private Consumer<StepToBeRun> messageHandler;
   private Consumer<Object> unhandledMessageHandler;
+  private Consumer<Throwable> asyncExceptionHandler;
   private Consumer<Object> messagePublisher;
-  private List<String> recordedStepNames;
-  private List<Object> recordedMessages;
+  private RecordingBuffer recordingBuffer;
   private boolean isRecording;
+  private JournalWriter journalWriter;
+  private Instrumentation instrumentation;
+  private boolean isInstrumented;
+  private boolean isDispatchInstrumented;
+  private int stepSamplingInterval;
+  private int nrOfStepsUntilSample;
   private boolean nestedReactToMessageCallCausesException;
+  private int dispatchId;
+  private int lastDispatchId;
+  private int[] canReactDispatchIds;
+  private boolean[] canReactResults;
+  private boolean isMemoizingConditions;
+  private int[] conditionDispatchIds;
+  private boolean[] conditionResults;
+  private CompiledModel cachedConditionsModel;
+  private boolean[] isCachedConditionValid;
+  private boolean[] cachedConditionResults;
+  private final Deque<Object> pendingMessages;
+  private boolean isReacting;
+  private int nrOfOuterPendingMessages;
+  private Object externalMessage;
+  private int stepLimit;
+  private int nrOfStepsRun;
+  private DispatchIndex candidateStepsIndex;
+  private Class<?> candidateStepsMessageClass;
+  private Step[] candidateSteps;
+  private Step[] systemEventCandidateSteps;
+  private Dispatcher dispatcher;
 
   /**
    * Constructor for creating a model runner.
    */
   public ModelRunner() {
+    this.pendingMessages = new ArrayDeque<>();
+    this.stepLimit = DEFAULT_STEP_LIMIT;
+    this.instrumentation = Instrumentation.NONE;
+    this.asyncExceptionHandler = ModelRunner::handleUncaughtException;
     handleWith(this::runStep);
     publishWith(this::publishMessage);
   }
@@ -57,11 +106,20 @@ public class ModelRunner {
   }
 
   private <T> void publishMessage(T message) {
-    Optional<AbstractActor> optionalToActor = getLatestStep().flatMap(ls -> ls.getPublishTo());
+    AbstractActor toActor = latestStep == null ? null : latestStep.getPublishToOrNull();
     nestedReactToMessageCallCausesException = false;
-    if (optionalToActor.isPresent()) {
-      AbstractActor owningActor = getOwningActor().orElse(model.getUserActor());
-      optionalToActor.get().reactTo(message, owningActor);
+    if (toActor != null) {
+      AbstractActor callingActor = owningActor == null ? model.getUserActor() : owningActor;
+      if (toActor.isAsync()) {
+        Consumer<Throwable> exceptionHandler = asyncExceptionHandler;
+        toActor.reactToAsync(message, callingActor).whenComplete((event, exception) -> {
+          if (exception != null) {
+            exceptionHandler.accept(exception);
+          }
+        });
+      } else {
+        toActor.reactTo(message, callingActor);
+      }
     } else {
       this.reactToSingleOrSeveralMessages(message);
     }
@@ -95,6 +153,32 @@ public class ModelRunner {
     return this;
   }
 
+  /**
+   * Define handler for exceptions that actors in asynchronous mode throw while
+   * reacting to messages published to them by this runner. As the runner
+   * doesn't wait for such an actor to react, the exception can't be handled by
+   * the publishing step. The handler is called in the thread of the receiving
+   * actor.
+   *
+   * <p>
+   * By default, the exception is passed to the uncaught exception handler of
+   * that thread.
+   *
+   * @param asyncExceptionHandler the handler for exceptions of asynchronous
+   *                              receivers
+   * @return this model runner, for chaining
+   * @see AbstractActor#async()
+   */
+  public ModelRunner handleAsyncExceptionWith(Consumer<Throwable> asyncExceptionHandler) {
+    this.asyncExceptionHandler = Objects.requireNonNull(asyncExceptionHandler);
+    return this;
+  }
+
+  private static void handleUncaughtException(Throwable exception) {
+    Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+  }
+
   /**
    * Define a custom publisher for events. It will be called after a system
    * reaction has been run, for the returned event objects of the system reaction.
@@ -113,6 +197,87 @@ public class ModelRunner {
     return this;
   }
 
+  /**
+   * Define the instrumentation that the runner calls while reacting to messages,
+   * e.g. a {@link org.requirementsascode.metrics.MetricsInstrumentation} for
+   * collecting metrics. By default, the runner uses
+   * {@link Instrumentation#NONE}, and doesn't call any instrumentation or measure
+   * any times.
+   *
+   * @param instrumentation the instrumentation
+   * @return this model runner, for chaining
+   * @throws IllegalArgumentException if the instrumentation's step sampling
+   *                                  interval is out of range
+   */
+  public ModelRunner instrumentWith(Instrumentation instrumentation) {
+    this.instrumentation = Objects.requireNonNull(instrumentation);
+    this.isInstrumented = instrumentation != Instrumentation.NONE;
+    this.isDispatchInstrumented = isInstrumented && instrumentation.isDispatchInstrumented();
+    this.stepSamplingInterval = isInstrumented ? instrumentation.getStepSamplingInterval() : 1;
+    if (stepSamplingInterval < 1 || stepSamplingInterval > 1 << 30) {
+      throw new IllegalArgumentException("Step sampling interval must be between 1 and 2^30, but was "
+        + stepSamplingInterval);
+    }
+    this.nrOfStepsUntilSample = 0;
+    return this;
+  }
+
+  /**
+   * Define the dispatcher that finds the steps that can possibly react to a
+   * message, e.g. a dispatcher generated for the model by the
+   * {@link org.requirementsascode.dispatch.DispatcherGenerator}. The runner only
+   * uses it while it is current for the model the runner runs, and uses its
+   * dispatch index otherwise.
+   *
+   * @param dispatcher the dispatcher
+   * @return this model runner, for chaining
+   */
+  public ModelRunner dispatchWith(Dispatcher dispatcher) {
+    this.dispatcher = Objects.requireNonNull(dispatcher);
+    return this;
+  }
+
+  /**
+   * Makes the runner evaluate each distinct condition of the model at most once
+   * while it looks for the step that reacts to a message. Use this if several
+   * steps share a condition, or a flow's condition is checked for many steps,
+   * and the conditions are expensive to evaluate.
+   *
+   * <p>
+   * The runner's state doesn't change while it looks for the step, so the
+   * result of a condition can only change if the condition depends on state
+   * outside of the runner that changes at the same time. Case conditions are
+   * not memoized, as they are evaluated after the runner's latest step has
+   * changed.
+   *
+   * @return this model runner, for chaining
+   */
+  public ModelRunner memoizeConditions() {
+    this.isMemoizingConditions = true;
+    return this;
+  }
+
+  /**
+   * Limits the number of steps the runner runs for a single message, including
+   * the autonomous system reactions and the reactions to published events that
+   * follow. If the runner would run more steps, it throws an
+   * {@link InfiniteRepetition} exception instead. The likely cause is a step
+   * with an always true condition, or an infinite loop.
+   * 
+   * <p>
+   * The default limit is {@value #DEFAULT_STEP_LIMIT} steps.
+   *
+   * @param stepLimit the maximum number of steps per message, must be positive
+   * @return this model runner, for chaining
+   */
+  public ModelRunner limitStepsTo(int stepLimit) {
+    if (stepLimit <= 0) {
+      throw new IllegalArgumentException("Step limit must be positive, but was " + stepLimit);
+    }
+    this.stepLimit = stepLimit;
+    return this;
+  }
+
   /**
    * Restarts the runner, resetting it to its original defaults ("no flow has been
    * run, no step has been run").
@@ -169,7 +334,7 @@ public class ModelRunner {
     }
   }
 
-  private ModelRunner runModel(Model model) {
+  ModelRunner runModel(Model model) {
     setModel(model);
     initializeStepToBeRun();
     setRunning(true);
@@ -214,7 +379,7 @@ public class ModelRunner {
   public <U> Optional<U> reactTo(Object... messages) {
     Objects.requireNonNull(messages);
     clearLatestPublishedEvent();
-    reactToMessages(messages);
+    reactToMessagesOfCaller(messages);
     return Optional.ofNullable((U) latestPublishedEvent);
   }
 
@@ -251,15 +416,138 @@ public class ModelRunner {
    *                                 there is an infinite loop.
    * @throws ClassCastException      when type of the returned instance isn't U
    */
-  @SuppressWarnings("unchecked")
   public <T, U> Optional<U> reactTo(T message) {
+    U publishedEvent = reactToRaw(message);
+    return Optional.ofNullable(publishedEvent);
+  }
+
+  /**
+   * Call this method to provide a message (i.e. command or event object) to the
+   * runner. The runner reacts to it as described in {@link #reactTo(Object)}.
+   *
+   * <p>
+   * In contrast to {@link #reactTo(Object)}, this method doesn't wrap the
+   * published event in an Optional. Unless the runner is recording, or the
+   * model's handlers or conditions allocate objects, reacting to a message this
+   * way doesn't allocate any objects. Use it in latency sensitive applications.
+   *
+   * @param <T>     the type of message
+   * @param <U>     the return type that you as the user expects.
+   * @param message the message object
+   * @return the event that was published (latest) if the system reacted, or
+   *         null.
+   * @throws MoreThanOneStepCanReact when more than one step can react
+   * @throws InfiniteRepetition      when a step has an always true condition, or
+   *                                 there is an infinite loop.
+   * @throws ClassCastException      when type of the returned instance isn't U
+   */
+  @SuppressWarnings("unchecked")
+  public <T, U> U reactToRaw(T message) {
     Objects.requireNonNull(message);
 
     clearLatestPublishedEvent();
-    
-    reactToSingleOrSeveralMessages(message);
 
-    return Optional.ofNullable((U) latestPublishedEvent);
+    reactToMessagesOfCaller(message);
+
+    return (U) latestPublishedEvent;
+  }
+
+  /**
+   * Call this method to provide a batch of messages to the runner. The runner
+   * reacts to each message as described in {@link #reactTo(Object)}, in order.
+   *
+   * <p>
+   * In contrast to {@link #reactTo(Object...)}, this method returns all events
+   * that have been published while reacting to the messages, not only the
+   * latest one. Consecutive messages of the same class reuse the candidate
+   * steps looked up for the first of them. Use this method e.g. for replaying
+   * the messages of an event store at startup.
+   *
+   * @param messages the message objects
+   * @return the published events, in the order they have been published
+   * @throws MoreThanOneStepCanReact when more than one step can react
+   * @throws InfiniteRepetition      when a step has an always true condition, or
+   *                                 there is an infinite loop.
+   * @throws NestedCallOfReactTo     when called while the runner reacts to a
+   *                                 message
+   */
+  public List<Object> reactToBatch(Object[] messages) {
+    Objects.requireNonNull(messages);
+    List<Object> publishedEvents = new ArrayList<>(messages.length);
+    reactToBatch(Arrays.asList(messages), publishedEvents);
+    return publishedEvents;
+  }
+
+  /**
+   * Same as {@link #reactToBatch(Object[])}, but for a collection of messages.
+   * The collection is iterated while the runner reacts to its messages, see
+   * {@link #reactToBatch(Iterable, Collection)}.
+   *
+   * @param messages the message objects
+   * @return the published events, in the order they have been published
+   */
+  public List<Object> reactToBatch(Collection<?> messages) {
+    Objects.requireNonNull(messages);
+    List<Object> publishedEvents = new ArrayList<>(messages.size());
+    reactToBatch(messages, publishedEvents);
+    return publishedEvents;
+  }
+
+  /**
+   * Same as {@link #reactToBatch(Object[])}, but adds the published events to
+   * the specified collection. Reuse the collection for several batches to avoid
+   * allocating a new one for each batch.
+   *
+   * <p>
+   * In contrast to {@link #reactTo(Object)}, the messages aren't copied before
+   * the runner reacts to them. They are iterated while the runner reacts, so
+   * the system reactions must not modify the messages' collection.
+   *
+   * @param messages        the message objects
+   * @param publishedEvents the collection the published events are added to
+   * @return the number of published events
+   */
+  public int reactToBatch(Iterable<?> messages, Collection<Object> publishedEvents) {
+    Objects.requireNonNull(messages);
+    Objects.requireNonNull(publishedEvents);
+    if (isReacting) {
+      throw new NestedCallOfReactTo();
+    }
+
+    int nrOfPublishedEventsBefore = publishedEvents.size();
+    clearLatestPublishedEvent();
+    publishedEventsOfBatch = publishedEvents;
+    try {
+      for (Object message : messages) {
+        reactToSingleMessage(message);
+      }
+    } finally {
+      publishedEventsOfBatch = null;
+    }
+    return publishedEvents.size() - nrOfPublishedEventsBefore;
+  }
+
+  // If the runner is reacting, and the caller isn't one of its own handlers, the
+  // caller is another actor that the runner has sent a message to. The runner
+  // reacts to the caller's messages right away, before it goes on with its own
+  // pending messages, and returns the event it published to the caller.
+  private <T> void reactToMessagesOfCaller(T message) {
+    if (!isReacting || nestedReactToMessageCallCausesException) {
+      reactToSingleOrSeveralMessages(message);
+      return;
+    }
+
+    int outerNrOfOuterPendingMessages = nrOfOuterPendingMessages;
+    Object outerExternalMessage = externalMessage;
+    nrOfOuterPendingMessages = pendingMessages.size();
+    isReacting = false;
+    try {
+      reactToSingleOrSeveralMessages(message);
+    } finally {
+      nrOfOuterPendingMessages = outerNrOfOuterPendingMessages;
+      externalMessage = outerExternalMessage;
+      isReacting = true;
+    }
   }
 
   private <T> void reactToSingleOrSeveralMessages(T message) {
@@ -287,11 +575,23 @@ public class ModelRunner {
   }
 
   private void reactToMessages(Object[] messages) {
-    for (Object message : messages) {
-      reactToSingleMessage(message);
+    if (isReacting) {
+      // Push in reverse order, so that the messages are reacted to in order
+      for (int i = messages.length - 1; i >= 0; i--) {
+        reactToSingleMessage(messages[i]);
+      }
+    } else {
+      for (Object message : messages) {
+        reactToSingleMessage(message);
+      }
     }
   }
 
+  // If the runner is already reacting to a message, the message is a published
+  // event or a handled exception. It is pushed onto the pending messages, and
+  // reacted to before the messages below it. This is the same order in which
+  // the runner would react to the messages if it called itself recursively, but
+  // the stack depth stays constant.
   private <T> void reactToSingleMessage(T message) {
     if (!isRunning()) {
       return;
@@ -300,72 +600,348 @@ public class ModelRunner {
       throw new NestedCallOfReactTo();
     }
 
-    Class<? extends Object> currentMessageClass = message.getClass();
+    Objects.requireNonNull(message);
+    pendingMessages.push(message);
+    if (!isReacting) {
+      reactToPendingMessages();
+    }
+  }
+
+  private void reactToPendingMessages() {
+    isReacting = true;
+    if (nrOfOuterPendingMessages == 0) {
+      nrOfStepsRun = 0;
+    }
+    externalMessage = pendingMessages.peek();
+    try {
+      while (pendingMessages.size() > nrOfOuterPendingMessages) {
+        Object pendingMessage = pendingMessages.pop();
+        try {
+          if (pendingMessage == END_OF_SYSTEM_REACTION) {
+            triggerAutonomousSystemReaction();
+          } else {
+            nestedReactToMessageCallCausesException = false;
+            reactToPendingMessage(pendingMessage);
+          }
+        } catch (Exception e) {
+          if (isInstrumented) {
+            instrumentation.exceptionThrown(e);
+          }
+          handleExceptionOfSystemReaction(e);
+        }
+      }
+    } finally {
+      // If an error has been thrown, the flag of the failed step is still set
+      nestedReactToMessageCallCausesException = false;
+      discardPendingMessagesAbove(nrOfOuterPendingMessages);
+      isReacting = false;
+      externalMessage = null;
+    }
+  }
+
+  // The exception is handled by the step whose system reaction was the latest
+  // to start, but hasn't ended yet. The messages pushed after that are discarded.
+  // If there is no such step, the exception is thrown to the caller. When the
+  // runner reacts to messages of another actor, only the steps that have
+  // started since then can handle the exception.
+  private void handleExceptionOfSystemReaction(Exception exception) {
+    Exception unhandledException = exception;
+    while (unhandledException != null) {
+      if (isStepLimitExceeded() || !discardPendingMessagesOfSystemReaction()) {
+        throwUnchecked(unhandledException);
+      }
+      triggerAutonomousSystemReaction();
+      try {
+        handleException(unhandledException);
+        unhandledException = null;
+      } catch (Exception e) {
+        unhandledException = e;
+      }
+    }
+  }
+
+  private boolean discardPendingMessagesOfSystemReaction() {
+    while (pendingMessages.size() > nrOfOuterPendingMessages) {
+      if (pendingMessages.pop() == END_OF_SYSTEM_REACTION) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void discardPendingMessagesAbove(int nrOfPendingMessagesToKeep) {
+    while (pendingMessages.size() > nrOfPendingMessagesToKeep) {
+      pendingMessages.pop();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> void throwUnchecked(Exception exception) throws E {
+    throw (E) exception;
+  }
 
+  private void reactToPendingMessage(Object message) {
+    if (!isRunning()) {
+      return;
+    }
+    if (!isDispatchInstrumented) {
+      dispatch(message);
+      return;
+    }
+
+    instrumentation.dispatchStarted(message);
+    long dispatchStartTime = System.nanoTime();
     try {
-      int nrOfStepsThatCanReact = 0;
-      Step stepThatWillReact = null;
-      Collection<Step> steps = model.getModifiableSteps();
+      dispatch(message);
+    } finally {
+      instrumentation.dispatchEnded(message, System.nanoTime() - dispatchStartTime);
+    }
+  }
+
+  private void dispatch(Object message) {
+    Class<? extends Object> currentMessageClass = message.getClass();
 
-      for (Step step : steps) {
-        if (canReactToMessageClass(step, currentMessageClass)) {
+    int nrOfStepsThatCanReact = 0;
+    Step stepThatWillReact = null;
+    Step[] candidateSteps = getCandidateSteps(currentMessageClass);
+
+    long conditionStartTime = isDispatchInstrumented ? System.nanoTime() : 0;
+    int previousDispatchId = beginDispatch();
+    try {
+      for (Step step : candidateSteps) {
+        if (canReact(step)) {
           stepThatWillReact = step;
           nrOfStepsThatCanReact++;
 
           if (nrOfStepsThatCanReact > 1) {
             // No more than one step is allowed to react to a message
-            throw new MoreThanOneStepCanReact(steps);
+            throw new MoreThanOneStepCanReact(model.getSteps());
           }
         }
       }
+    } finally {
+      endDispatch(previousDispatchId);
+    }
+    if (isDispatchInstrumented) {
+      instrumentation.conditionsEvaluated(currentMessageClass, candidateSteps.length,
+        System.nanoTime() - conditionStartTime);
+    }
 
-      if (nrOfStepsThatCanReact == 1) {
-        triggerSystemReaction(message, stepThatWillReact);
-      } else if (unhandledMessageHandler != null && !isSystemEvent(message)) {
-        unhandledMessageHandler.accept(message);
-      } else if (message instanceof RuntimeException) {
-        throw (RuntimeException) message;
+    if (nrOfStepsThatCanReact == 1) {
+      triggerSystemReaction(message, stepThatWillReact);
+      return;
+    }
+    if (isInstrumented && !isSystemEvent(message)) {
+      instrumentation.messageUnhandled(message);
+    }
+    if (unhandledMessageHandler != null && !isSystemEvent(message)) {
+      unhandledMessageHandler.accept(message);
+    } else if (message instanceof RuntimeException) {
+      throw (RuntimeException) message;
+    }
+  }
+
+  // Consecutive messages of the same class, e.g. in a batch, reuse the candidate
+  // steps looked up for the first of them. The candidate steps for the system
+  // event of the autonomous system reactions in between are cached separately.
+  private Step[] getCandidateSteps(Class<?> messageClass) {
+    if (dispatcher != null && dispatcher.isCurrentFor(model)) {
+      Step[] dispatcherCandidateSteps = dispatcher.getCandidateSteps(messageClass);
+      if (dispatcherCandidateSteps != null) {
+        return dispatcherCandidateSteps;
+      }
+    }
+
+    DispatchIndex dispatchIndex = model.getDispatchIndex();
+    if (dispatchIndex != candidateStepsIndex) {
+      candidateStepsIndex = dispatchIndex;
+      candidateStepsMessageClass = null;
+      systemEventCandidateSteps = null;
+    }
+
+    if (DispatchIndex.hasSystemEventClass(messageClass)) {
+      if (systemEventCandidateSteps == null) {
+        systemEventCandidateSteps = dispatchIndex.getCandidateSteps(messageClass);
       }
-    } catch (StackOverflowError err) {
-      throw new InfiniteRepetition(latestStep);
+      return systemEventCandidateSteps;
     }
+    if (messageClass != candidateStepsMessageClass) {
+      candidateSteps = dispatchIndex.getCandidateSteps(messageClass);
+      candidateStepsMessageClass = messageClass;
+    }
+    return candidateSteps;
   }
 
-  private boolean canReact(Step step) {
-    boolean stepCanReact = hasRightActor(step) && hasTruePredicate(step);
-    return stepCanReact;
+  /**
+   * Returns whether the specified step can react. During a dispatch, the result
+   * for each step of the model is only computed once, and then looked up. So
+   * the predicate of an interrupting step is evaluated at most once per
+   * dispatch, even if it is checked for many interruptable steps.
+   * 
+   * @param step the step to check
+   * @return true if the step can react, false otherwise
+   */
+  boolean canReact(Step step) {
+    if (dispatchId == 0) {
+      return hasRightActor(step) && hasTruePredicate(step);
+    }
+
+    int stepId = getStepId(step);
+    ensureCanReactCapacity(stepId + 1);
+    if (canReactDispatchIds[stepId] != dispatchId) {
+      canReactResults[stepId] = hasRightActor(step) && hasTruePredicate(step);
+      canReactDispatchIds[stepId] = dispatchId;
+    }
+    return canReactResults[stepId];
   }
 
-  boolean canReactToMessageClass(Step step, Class<? extends Object> currentMessageClass) {
-    boolean stepCanReact = stepMessageClassIsSameOrSuperclass(step, currentMessageClass) && canReact(step);
-    return stepCanReact;
+  // The steps of a composed model belong to its parts. Their ids in the model
+  // the runner runs include the offsets of the parts.
+  private int getStepId(Step step) {
+    return step.getModel() == model ? step.getId() : model.getCompiledModel().getStepId(step);
   }
 
-  private boolean hasRightActor(Step step) {
-    final Predicate<AbstractActor> isSystemOrRunActor = actor -> actor.equals(model.getUserActor())
-      || actor.equals(model.getSystemActor()) || actor.equals(runActor);
+  /**
+   * Evaluates the specified condition of the step. If the runner memoizes
+   * conditions, the result is looked up in the condition's slot, if it has been
+   * evaluated in the same dispatch before.
+   *
+   * @param step         the step the condition belongs to
+   * @param condition    the condition or the react while condition of the step
+   * @param isReactWhile true if the condition is the react while condition
+   * @return the result of the condition
+   */
+  boolean evaluateCondition(Step step, Condition condition, boolean isReactWhile) {
+    boolean isStateDependent = condition instanceof StateDependentCondition;
+    boolean isMemoized = isMemoizingConditions && dispatchId != 0;
+    if (!isStateDependent && !isMemoized) {
+      return condition.evaluate();
+    }
+
+    CompiledModel compiledModel = model.getCompiledModel();
+    int stepId = compiledModel.getStepId(step);
+    int slot = isReactWhile ? compiledModel.getReactWhileSlot(stepId) : compiledModel.getConditionSlot(stepId);
+    if (slot == CompiledModel.NO_CONDITION_SLOT) {
+      return condition.evaluate();
+    }
+    if (isStateDependent) {
+      return evaluateStateDependentCondition(compiledModel, slot, condition);
+    }
+
+    ensureConditionCapacity(compiledModel.getNrOfConditionSlots());
+    if (conditionDispatchIds[slot] != dispatchId) {
+      conditionResults[slot] = condition.evaluate();
+      conditionDispatchIds[slot] = dispatchId;
+    }
+    return conditionResults[slot];
+  }
+
+  // The result is cached across dispatches, until a step that touches one of the
+  // condition's state keys has run, or one of the keys is touched explicitly.
+  private boolean evaluateStateDependentCondition(CompiledModel compiledModel, int slot, Condition condition) {
+    if (cachedConditionsModel != compiledModel) {
+      cachedConditionsModel = compiledModel;
+      isCachedConditionValid = new boolean[compiledModel.getNrOfConditionSlots()];
+      cachedConditionResults = new boolean[compiledModel.getNrOfConditionSlots()];
+    }
+    if (!isCachedConditionValid[slot]) {
+      cachedConditionResults[slot] = condition.evaluate();
+      isCachedConditionValid[slot] = true;
+    }
+    return cachedConditionResults[slot];
+  }
+
+  private void invalidateCachedConditions(int[] slots) {
+    for (int slot : slots) {
+      isCachedConditionValid[slot] = false;
+    }
+  }
+
+  private void invalidateConditionsTouchedBy(Step step) {
+    if (cachedConditionsModel != null) {
+      if (cachedConditionsModel == model.getCompiledModel()) {
+        invalidateCachedConditions(cachedConditionsModel.getTouchedSlots(cachedConditionsModel.getStepId(step)));
+      } else {
+        cachedConditionsModel = null;
+      }
+    }
+  }
+
+  /**
+   * Tells the runner that the state identified by the specified keys has
+   * changed outside of the system reactions, e.g. by another runner. The runner
+   * then evaluates the conditions that depend on the keys again.
+   *
+   * @see Condition#dependsOn(Condition, String...)
+   * @param stateKeys the keys of the changed state
+   * @return this model runner, for chaining
+   */
+  public ModelRunner touch(String... stateKeys) {
+    Objects.requireNonNull(stateKeys);
+    if (cachedConditionsModel != null) {
+      if (cachedConditionsModel == model.getCompiledModel()) {
+        for (String stateKey : stateKeys) {
+          invalidateCachedConditions(cachedConditionsModel.getSlotsOfStateKey(stateKey));
+        }
+      } else {
+        cachedConditionsModel = null;
+      }
+    }
+    return this;
+  }
 
+  private void ensureConditionCapacity(int nrOfSlots) {
+    if (conditionDispatchIds == null || conditionDispatchIds.length < nrOfSlots) {
+      conditionDispatchIds = new int[nrOfSlots];
+      conditionResults = new boolean[nrOfSlots];
+    }
+  }
+
+  private void ensureCanReactCapacity(int nrOfSteps) {
+    if (canReactDispatchIds == null || canReactDispatchIds.length < nrOfSteps) {
+      int capacity = Math.max(nrOfSteps, model.getCompiledModel().getSteps().length);
+      canReactDispatchIds = new int[capacity];
+      canReactResults = new boolean[capacity];
+    }
+  }
+
+  // Starts a dispatch, i.e. a pass in which the runner's state doesn't change,
+  // so that the results of canReact(step) can be reused. Dispatches may be
+  // nested, e.g. if a condition asks the runner whether it can react to a
+  // message. The ids of nested dispatches are unique, so the results of
+  // different dispatches never get mixed up.
+  private int beginDispatch() {
+    int previousDispatchId = dispatchId;
+    lastDispatchId++;
+    if (lastDispatchId == 0) {
+      lastDispatchId = 1;
+      canReactDispatchIds = null;
+      conditionDispatchIds = null;
+    }
+    dispatchId = lastDispatchId;
+    return previousDispatchId;
+  }
+
+  private void endDispatch(int previousDispatchId) {
+    dispatchId = previousDispatchId;
+  }
+
+  private boolean hasRightActor(Step step) {
     AbstractActor[] stepActors = step.getActors();
     if (stepActors == null) {
       throw (new MissingUseCaseStepPart(step, "actor"));
     }
 
     for (AbstractActor stepActor : stepActors) {
-      if (isSystemOrRunActor.test(stepActor)) {
+      if (isSystemOrRunActor(stepActor)) {
         return true;
       }
     }
     return false;
   }
 
-  private boolean stepMessageClassIsSameOrSuperclass(Step step, Class<?> currentMessageClass) {
-    Class<?> stepMessageClass = step.getMessageClass();
-    if (stepMessageClass == null) {
-      throw new MissingUseCaseStepPart(step, "on/user");
-    }
-    boolean result = hasSystemEventClass(currentMessageClass) ? hasSystemEventClass(stepMessageClass)
-      : stepMessageClass.isAssignableFrom(currentMessageClass);
-    return result;
+  private boolean isSystemOrRunActor(AbstractActor actor) {
+    return actor.equals(model.getUserActor()) || actor.equals(model.getSystemActor()) || actor.equals(runActor);
   }
 
   private boolean hasTruePredicate(Step step) {
@@ -379,50 +955,95 @@ public class ModelRunner {
       throw new MissingUseCaseStepPart(step, "system");
     }
 
+    nrOfStepsRun++;
+    if (isStepLimitExceeded()) {
+      throw new InfiniteRepetition(step);
+    }
+
     stepToBeRun.setupWith(step, message);
     setLatestStep(step);
 
-    try {
-      nestedReactToMessageCallCausesException = true;
-
-      Condition isTheCase = step.getCase().orElse(() -> true);
-      if (isTheCase.evaluate()) {
-        recordStepNameAndMessage(step, message);
-        messageHandler.accept(stepToBeRun);
-        publishReturnedMessage();
+    // When the end is popped, i.e. after the reactions to the published events,
+    // the autonomous system reaction is triggered.
+    pendingMessages.push(END_OF_SYSTEM_REACTION);
+    nestedReactToMessageCallCausesException = true;
+
+    if (step.isTheCase()) {
+      recordStepNameAndMessage(step, message);
+      try {
+        handleStep(step, message);
+      } finally {
+        invalidateConditionsTouchedBy(step);
       }
+      publishReturnedMessage();
+    }
+  }
+
+  private void handleStep(Step step, Object message) {
+    if (!isInstrumented) {
+      messageHandler.accept(stepToBeRun);
+      return;
+    }
 
+    boolean isMeasured = isStepSampled();
+    long handlerStartTime = isMeasured ? System.nanoTime() : 0;
+    try {
+      messageHandler.accept(stepToBeRun);
     } catch (Exception e) {
-      handleException(e);
+      instrumentation.stepFailed(step, message.getClass(), handlerNanos(isMeasured, handlerStartTime), e);
+      throw e;
     }
+    instrumentation.stepHandled(step, message.getClass(), handlerNanos(isMeasured, handlerStartTime));
+  }
 
-    triggerAutonomousSystemReaction();
+  // The distance to the next sample is random, with a mean of the sampling
+  // interval, so that a periodic workload doesn't always sample the same steps.
+  private boolean isStepSampled() {
+    if (--nrOfStepsUntilSample > 0) {
+      return false;
+    }
+    nrOfStepsUntilSample = stepSamplingInterval == 1 ? 1
+      : 1 + ThreadLocalRandom.current().nextInt(2 * stepSamplingInterval - 1);
+    return true;
+  }
+
+  private static long handlerNanos(boolean isMeasured, long handlerStartTime) {
+    return isMeasured ? System.nanoTime() - handlerStartTime : Instrumentation.NOT_MEASURED;
+  }
+
+  private boolean isStepLimitExceeded() {
+    return nrOfStepsRun > stepLimit;
   }
 
   private void publishReturnedMessage() {
-    Optional<Object> messageToBePublished = stepToBeRun.getMessageToBePublished();
-    if (messagePublisher != null && messageToBePublished.isPresent()) {
-      messagePublisher.accept(messageToBePublished.get());
+    Object messageToBePublished = stepToBeRun.getMessageToBePublishedOrNull();
+    if (messagePublisher != null && messageToBePublished != null) {
+      if (isInstrumented) {
+        instrumentation.messagePublished(stepToBeRun.getStep(), messageToBePublished);
+      }
+      messagePublisher.accept(messageToBePublished);
     }
   }
 
   private <T> boolean isSystemEvent(T message) {
-    return hasSystemEventClass(message.getClass());
-  }
-
-  private boolean hasSystemEventClass(Class<?> messageClass) {
-    return SYSTEM_EVENT_CLASS.equals(messageClass);
+    return DispatchIndex.hasSystemEventClass(message.getClass());
   }
 
   void recordStepNameAndMessage(Step step, Object message) {
     if (isRecording) {
-      recordedStepNames.add(step.getName());
-      if (message != null && !isSystemEvent(message)) {
-        recordedMessages.add(message);
-      }
+      recordingBuffer.add(step, message == null || isSystemEvent(message) ? null : message);
+    }
+    if (journalWriter != null) {
+      // Only the message passed in from outside is journaled. The runner reacts
+      // to the messages published during its system reactions again on replay.
+      journalWriter.append(model.getCompiledModel().getStepId(step), isExternalMessage(message) ? message : null);
     }
   }
 
+  private boolean isExternalMessage(Object message) {
+    return message != null && message == externalMessage && !isSystemEvent(message);
+  }
+
   /**
    * Returns whether at least one step can react to a message of the specified
    * class.
@@ -444,12 +1065,17 @@ public class ModelRunner {
     }
     boolean canReact = false;
 
-    Collection<Step> steps = model.getModifiableSteps();
-    for (Step step : steps) {
-      if (canReactToMessageClass(step, messageClass)) {
-        canReact = true;
-        break;
+    Step[] candidateSteps = model.getDispatchIndex().getCandidateSteps(messageClass);
+    int previousDispatchId = beginDispatch();
+    try {
+      for (Step step : candidateSteps) {
+        if (canReact(step)) {
+          canReact = true;
+          break;
+        }
       }
+    } finally {
+      endDispatch(previousDispatchId);
     }
 
     return canReact;
@@ -467,13 +1093,18 @@ public class ModelRunner {
 
     if (isRunning) {
       reactToTypes = new LinkedHashSet<>();
-      Collection<Step> steps = model.getModifiableSteps();
-
-      for (Step step : steps) {
-        if (canReact(step)) {
-          Class<?> messageClass = step.getMessageClass();
-          reactToTypes.add(messageClass);
+      Step[] steps = model.getDispatchIndex().getSteps();
+
+      int previousDispatchId = beginDispatch();
+      try {
+        for (Step step : steps) {
+          if (canReact(step)) {
+            Class<?> messageClass = step.getMessageClass();
+            reactToTypes.add(messageClass);
+          }
         }
+      } finally {
+        endDispatch(previousDispatchId);
       }
     } else {
       reactToTypes = Collections.emptySet();
@@ -494,11 +1125,16 @@ public class ModelRunner {
     Set<Step> stepsThatCanReact = new HashSet<>(2);
 
     if (isRunning) {
-      Collection<Step> steps = model.getModifiableSteps();
-      for (Step step : steps) {
-        if (canReactToMessageClass(step, messageClass)) {
-          stepsThatCanReact.add(step);
+      Step[] candidateSteps = model.getDispatchIndex().getCandidateSteps(messageClass);
+      int previousDispatchId = beginDispatch();
+      try {
+        for (Step step : candidateSteps) {
+          if (canReact(step)) {
+            stepsThatCanReact.add(step);
+          }
         }
+      } finally {
+        endDispatch(previousDispatchId);
       }
     }
 
@@ -527,6 +1163,10 @@ public class ModelRunner {
     return Optional.ofNullable(latestStep);
   }
 
+  Step getLatestStepOrNull() {
+    return latestStep;
+  }
+
   /**
    * Sets the latest step run by the runner.
    *
@@ -558,8 +1198,25 @@ public class ModelRunner {
    * @return this model runner for method chaining
    */
   public ModelRunner startRecording() {
-    recordedStepNames = new ArrayList<>();
-    recordedMessages = new ArrayList<>();
+    return startRecording(RecordingBuffer.UNBOUNDED);
+  }
+
+  /**
+   * Same as {@link #startRecording()}, but only the specified number of latest
+   * steps and their messages are recorded. When more steps are run, the oldest
+   * recorded steps are dropped.
+   *
+   * <p>
+   * The memory for the recorded steps is allocated when calling this method,
+   * and recording a step doesn't allocate any objects. So recording can stay
+   * on in production, e.g. to find out which steps ran before an error.
+   *
+   * @param maxNrOfSteps the maximum number of recorded steps
+   * @return this model runner for method chaining
+   * @throws IllegalArgumentException if the maximum number isn't positive
+   */
+  public ModelRunner startRecording(int maxNrOfSteps) {
+    recordingBuffer = new RecordingBuffer(maxNrOfSteps);
     isRecording = true;
     return this;
   }
@@ -575,6 +1232,35 @@ public class ModelRunner {
     return this;
   }
 
+  /**
+   * After calling this method, until journaling is stopped, each step that is
+   * run and the message that caused it to run are appended to the journal of
+   * the specified writer. In contrast to recording, the messages are encoded
+   * and written to a channel, so they aren't kept on the heap.
+   *
+   * <p>
+   * The writer isn't flushed or closed by the runner.
+   *
+   * @param journalWriter the writer of the journal
+   * @return this model runner for method chaining
+   */
+  public ModelRunner startJournaling(JournalWriter journalWriter) {
+    this.journalWriter = Objects.requireNonNull(journalWriter);
+    return this;
+  }
+
+  /**
+   * When calling this method, journaling is stopped. No steps and messages are
+   * appended to the journal until {@link #startJournaling(JournalWriter)} is
+   * called again.
+   *
+   * @return this model runner for method chaining
+   */
+  public ModelRunner stopJournaling() {
+    this.journalWriter = null;
+    return this;
+  }
+
   /**
    * Returns the recorded names of the steps that have been run so far.
    * <p>
@@ -586,11 +1272,10 @@ public class ModelRunner {
    * @return the ordered names of steps run by this runner
    */
   public String[] getRecordedStepNames() {
-    if (recordedStepNames == null) {
-      recordedStepNames = new ArrayList<>();
+    if (recordingBuffer == null) {
+      return new String[0];
     }
-    String[] stepNames = recordedStepNames.stream().toArray(String[]::new);
-    return stepNames;
+    return recordingBuffer.getStepNames();
   }
 
   /**
@@ -604,11 +1289,25 @@ public class ModelRunner {
    * @return the messages that caused a system reaction, in order of occurrence
    */
   public Object[] getRecordedMessages() {
-    if (recordedMessages == null) {
-      recordedMessages = new ArrayList<>();
+    if (recordingBuffer == null) {
+      return new Object[0];
+    }
+    return recordingBuffer.getMessages();
+  }
+
+  /**
+   * Returns a copy of the recorded steps and the messages that caused them to
+   * run. In contrast to {@link #getRecordedStepNames()} and
+   * {@link #getRecordedMessages()}, the steps and messages are copied in one go,
+   * and the messages can be matched to the steps.
+   *
+   * @return the snapshot, which is empty if the runner hasn't recorded anything
+   */
+  public RecordingSnapshot getRecordingSnapshot() {
+    if (recordingBuffer == null) {
+      return new RecordingSnapshot(new Step[0], new Object[0], 0);
     }
-    Object[] messages = recordedMessages.toArray();
-    return messages;
+    return recordingBuffer.snapshot();
   }
 
   /**
@@ -624,6 +1323,126 @@ public class ModelRunner {
     this.owningActor = owningActor;
   }
 
+  /**
+   * Takes a snapshot of the state of this runner: the id of the latest step run,
+   * whether the runner is running, and the id of the actor it runs as.
+   *
+   * <p>
+   * The snapshot is serializable. Together with {@link #restore(ModelRunnerState)},
+   * it enables rehydrating a runner, e.g. for an event sourced aggregate,
+   * without running the model again and without looking up steps by name. A
+   * snapshot can only be restored for the same model it has been taken for, or
+   * a model that defines the same steps in the same order.
+   *
+   * @return the snapshot
+   * @throws IllegalStateException    if the runner hasn't run a model yet
+   * @throws IllegalArgumentException if the latest step run doesn't belong to
+   *                                  the model the runner runs
+   */
+  public ModelRunnerState snapshot() {
+    requireModel();
+    ModelRunnerState snapshot = new ModelRunnerState();
+    saveState(snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Restores the state of this runner from the specified snapshot, taken by
+   * {@link #snapshot()}. This runner must have run the model the snapshot has
+   * been taken for. Restoring doesn't trigger autonomous system reactions.
+   *
+   * @param snapshot the snapshot to restore
+   * @return this model runner, for chaining
+   * @throws IllegalStateException    if the runner hasn't run a model yet
+   * @throws IllegalArgumentException if the snapshot refers to a step or actor
+   *                                  the model doesn't contain
+   */
+  public ModelRunner restore(ModelRunnerState snapshot) {
+    Objects.requireNonNull(snapshot);
+    requireModel();
+
+    CompiledModel compiledModel = model.getCompiledModel();
+    int latestStepId = snapshot.getLatestStepId();
+    int runActorId = snapshot.getRunActorId();
+    if (latestStepId < ModelRunnerState.NO_STEP || latestStepId >= compiledModel.getSteps().length
+      || runActorId < 0 || runActorId >= compiledModel.getNrOfRunActors()) {
+      throw new IllegalArgumentException("Snapshot doesn't match the model of the runner");
+    }
+    loadState(model, snapshot);
+    return this;
+  }
+
+  /**
+   * Switches this runner to a new version of the model it runs, without
+   * restarting it. The latest step is mapped to the step with the same name in
+   * the use case with the same name. See {@link ModelMigration} for details.
+   *
+   * @param newModel the new version of the model
+   * @return this model runner, for chaining
+   * @throws IllegalStateException    if the runner hasn't run a model yet
+   * @throws IllegalArgumentException if the latest step has no counterpart in
+   *                                  the new model
+   */
+  public ModelRunner migrateTo(Model newModel) {
+    requireModel();
+    return migrateWith(ModelMigration.between(model, newModel));
+  }
+
+  /**
+   * Switches this runner to the new model of the specified migration, without
+   * restarting it. Create the migration once, and use it to migrate many
+   * runners. If the migration fails, the runner keeps running the old model,
+   * unchanged. Migrating doesn't trigger autonomous system reactions.
+   *
+   * <p>
+   * Note that the step ids in a journal written before the migration refer to
+   * the old model.
+   *
+   * @param migration the migration from the model the runner runs
+   * @return this model runner, for chaining
+   * @throws IllegalStateException    if the runner hasn't run a model yet, or
+   *                                  one of the models has changed since the
+   *                                  migration has been created
+   * @throws IllegalArgumentException if the runner doesn't run the model
+   *                                  migrated from, or the latest step has no
+   *                                  counterpart in the new model
+   */
+  public ModelRunner migrateWith(ModelMigration migration) {
+    Objects.requireNonNull(migration);
+    requireModel();
+    if (migration.getFromModel() != model) {
+      throw new IllegalArgumentException("Model runner doesn't run the model migrated from");
+    }
+    ModelRunnerState state = snapshot();
+    loadState(migration.getToModel(), migration.migrate(state));
+    return this;
+  }
+
+  private void requireModel() {
+    if (model == null) {
+      throw new IllegalStateException("Model runner hasn't run a model yet");
+    }
+  }
+
+  void loadState(Model model, ModelRunnerState state) {
+    setModel(model);
+    CompiledModel compiledModel = model.getCompiledModel();
+    int latestStepId = state.getLatestStepId();
+    setLatestStep(latestStepId == ModelRunnerState.NO_STEP ? null : compiledModel.getStep(latestStepId));
+    setRunActor(compiledModel.getRunActor(state.getRunActorId()));
+    setRunning(state.isRunning());
+    if (stepToBeRun == null) {
+      initializeStepToBeRun();
+    }
+  }
+
+  void saveState(ModelRunnerState state) {
+    CompiledModel compiledModel = model.getCompiledModel();
+    state.setLatestStepId(latestStep == null ? ModelRunnerState.NO_STEP : compiledModel.getStepId(latestStep));
+    state.setRunActorId(compiledModel.getRunActorId(runActor));
+    state.setRunning(isRunning);
+  }
+
   private void initializeStepToBeRun() {
     this.stepToBeRun = new StepToBeRun();
   }
@@ -639,6 +1458,7 @@ public class ModelRunner {
 
   private void setModel(Model model) {
     this.model = Objects.requireNonNull(model);
+    this.cachedConditionsModel = null;
   }
 
   private void setRunning(boolean status) {
@@ -655,5 +1475,8 @@ public class ModelRunner {
 
   private void setLatestPublishedEvent(Object event) {
     latestPublishedEvent = event;
+    if (publishedEventsOfBatch != null) {
+      publishedEventsOfBatch.add(event);
+    }
   }
 }
@@ -0,0 +1,90 @@
+package org.requirementsascode;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * The state of a single session (i.e. user journey) run by a
+ * {@link SharedModelRunner}, or a snapshot of the state of a
+ * {@link ModelRunner}.
+ *
+ * <p>
+ * The state only contains the id of the latest step run, whether the session
+ * is running, and the id of the actor the session runs as. Everything else is
+ * shared by all sessions of the shared model runner. So you can keep a very
+ * large number of sessions in memory, or serialize them.
+ *
+ * <p>
+ * A state object must not be used by several threads at the same time.
+ */
+public final class ModelRunnerState implements Serializable {
+  private static final long serialVersionUID = 1L;
+  static final int NO_STEP = -1;
+
+  private int latestStepId;
+  private boolean isRunning;
+  private int runActorId;
+
+  ModelRunnerState() {
+    this.latestStepId = NO_STEP;
+  }
+
+  /**
+   * Writes this state to the specified buffer, in a compact binary format of at
+   * most 11 bytes.
+   *
+   * @param buffer the buffer to write to
+   * @throws java.nio.BufferOverflowException if the buffer doesn't have enough
+   *                                          space
+   */
+  public void writeTo(ByteBuffer buffer) {
+    Varint.put(buffer, latestStepId + 1);
+    buffer.put(isRunning ? (byte) 1 : (byte) 0);
+    Varint.put(buffer, runActorId);
+  }
+
+  /**
+   * Reads a state that has been written by {@link #writeTo(ByteBuffer)} from the
+   * specified buffer.
+   *
+   * @param buffer the buffer to read from
+   * @return the state
+   * @throws java.nio.BufferUnderflowException if the buffer ends within the state
+   */
+  public static ModelRunnerState readFrom(ByteBuffer buffer) {
+    ModelRunnerState state = new ModelRunnerState();
+    state.setLatestStepId(Varint.get(buffer) - 1);
+    state.setRunning(buffer.get() != 0);
+    state.setRunActorId(Varint.get(buffer));
+    return state;
+  }
+
+  /**
+   * Returns whether the session is running.
+   *
+   * @return true if running, false otherwise
+   */
+  public boolean isRunning() {
+    return isRunning;
+  }
+
+  void setRunning(boolean isRunning) {
+    this.isRunning = isRunning;
+  }
+
+  int getLatestStepId() {
+    return latestStepId;
+  }
+
+  void setLatestStepId(int latestStepId) {
+    this.latestStepId = latestStepId;
+  }
+
+  int getRunActorId() {
+    return runActorId;
+  }
+
+  void setRunActorId(int runActorId) {
+    this.runActorId = runActorId;
+  }
+}
@@ -0,0 +1,111 @@
+package org.requirementsascode;
+
+import java.util.Arrays;
+
+/**
+ * The steps and messages recorded by a model runner.
+ *
+ * <p>
+ * If the buffer is unbounded, its arrays grow when they are full. If it is
+ * bounded, the arrays are allocated once, and used as a ring: when the buffer
+ * is full, the oldest entry is overwritten. Either way, recording a step
+ * doesn't allocate any objects, except when the arrays grow.
+ */
+final class RecordingBuffer {
+  static final int UNBOUNDED = Integer.MAX_VALUE;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int maxSize;
+  private Step[] steps;
+  private Object[] messages;
+  private int nextIndex;
+  private int size;
+  private long nrOfDroppedSteps;
+
+  RecordingBuffer(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Maximum number of recorded steps must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    int capacity = maxSize == UNBOUNDED ? INITIAL_CAPACITY : maxSize;
+    this.steps = new Step[capacity];
+    this.messages = new Object[capacity];
+  }
+
+  /**
+   * Records the specified step.
+   *
+   * @param step    the step that has been run
+   * @param message the message that caused the step to run, or null
+   */
+  void add(Step step, Object message) {
+    if (size == steps.length && size < maxSize) {
+      grow();
+    }
+    steps[nextIndex] = step;
+    messages[nextIndex] = message;
+    nextIndex = nextIndex + 1 == steps.length ? 0 : nextIndex + 1;
+    if (size < steps.length) {
+      size++;
+    } else {
+      nrOfDroppedSteps++;
+    }
+  }
+
+  // Only called while the ring hasn't wrapped, i.e. the entries are in order
+  // from index 0 on
+  private void grow() {
+    int newCapacity = (int) Math.min((long) steps.length * 2, maxSize);
+    steps = Arrays.copyOf(steps, newCapacity);
+    messages = Arrays.copyOf(messages, newCapacity);
+    nextIndex = size;
+  }
+
+  String[] getStepNames() {
+    String[] stepNames = new String[size];
+    int index = getOldestIndex();
+    for (int i = 0; i < size; i++) {
+      stepNames[i] = steps[index].getName();
+      index = index + 1 == steps.length ? 0 : index + 1;
+    }
+    return stepNames;
+  }
+
+  Object[] getMessages() {
+    int nrOfMessages = 0;
+    for (int i = 0; i < size; i++) {
+      if (messages[i] != null) {
+        nrOfMessages++;
+      }
+    }
+
+    Object[] recordedMessages = new Object[nrOfMessages];
+    int messageIndex = 0;
+    int index = getOldestIndex();
+    for (int i = 0; i < size; i++) {
+      if (messages[index] != null) {
+        recordedMessages[messageIndex++] = messages[index];
+      }
+      index = index + 1 == steps.length ? 0 : index + 1;
+    }
+    return recordedMessages;
+  }
+
+  RecordingSnapshot snapshot() {
+    return new RecordingSnapshot(copyInOrder(steps, new Step[size]), copyInOrder(messages, new Object[size]),
+      nrOfDroppedSteps);
+  }
+
+  private <T> T[] copyInOrder(T[] source, T[] target) {
+    int oldestIndex = getOldestIndex();
+    int nrOfEntriesUntilEnd = Math.min(size, source.length - oldestIndex);
+    System.arraycopy(source, oldestIndex, target, 0, nrOfEntriesUntilEnd);
+    System.arraycopy(source, 0, target, nrOfEntriesUntilEnd, size - nrOfEntriesUntilEnd);
+    return target;
+  }
+
+  private int getOldestIndex() {
+    int oldestIndex = nextIndex - size;
+    return oldestIndex < 0 ? oldestIndex + steps.length : oldestIndex;
+  }
+}
@@ -0,0 +1,75 @@
+package org.requirementsascode;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * A copy of the steps and messages that a model runner has recorded, from the
+ * oldest to the latest. The copy isn't affected by steps that the runner runs
+ * later.
+ *
+ * <p>
+ * Iterating over the snapshot returns the recorded steps. Use
+ * {@link #getMessage(int)} to get the message that caused a step to run.
+ *
+ * @see ModelRunner#getRecordingSnapshot()
+ */
+public class RecordingSnapshot implements Iterable<Step> {
+  private final Step[] steps;
+  private final Object[] messages;
+  private final long nrOfDroppedSteps;
+
+  RecordingSnapshot(Step[] steps, Object[] messages, long nrOfDroppedSteps) {
+    this.steps = steps;
+    this.messages = messages;
+    this.nrOfDroppedSteps = nrOfDroppedSteps;
+  }
+
+  /**
+   * Returns the number of recorded steps in this snapshot.
+   *
+   * @return the number of steps
+   */
+  public int size() {
+    return steps.length;
+  }
+
+  /**
+   * Returns the recorded step at the specified index.
+   *
+   * @param index the index, 0 for the oldest step
+   * @return the step
+   */
+  public Step getStep(int index) {
+    return steps[index];
+  }
+
+  /**
+   * Returns the message that caused the recorded step at the specified index
+   * to run.
+   *
+   * @param index the index, 0 for the oldest step
+   * @return the message, or an empty optional if the step has been run without
+   *         a message, or by a system event
+   */
+  public Optional<Object> getMessage(int index) {
+    return Optional.ofNullable(messages[index]);
+  }
+
+  /**
+   * Returns the number of steps that have been overwritten by later steps,
+   * because the runner only records a maximum number of steps.
+   *
+   * @see ModelRunner#startRecording(int)
+   * @return the number of dropped steps
+   */
+  public long getNrOfDroppedSteps() {
+    return nrOfDroppedSteps;
+  }
+
+  @Override
+  public Iterator<Step> iterator() {
+    return Arrays.asList(steps).iterator();
+  }
+}
@@ -0,0 +1,226 @@
+package org.requirementsascode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.requirementsascode.queue.BoundedEventQueue;
+import org.requirementsascode.queue.WaitStrategy;
+
+/**
+ * Runs a separate model runner for each key (e.g. the id of an aggregate or
+ * session), and confines each model runner to a single thread.
+ *
+ * <p>
+ * A key is mapped to one of a fixed number of shards, by its hash code. Each
+ * shard has a mailbox (a {@link BoundedEventQueue}) and a single thread that
+ * processes the messages in the mailbox, one at a time. The shard creates and
+ * owns the model runners for its keys. So the messages for the same key are
+ * processed in the order they have been sent, while the messages for different
+ * keys are processed in parallel, if the keys are mapped to different shards.
+ *
+ * <p>
+ * A sharded model runner is thread-safe: any thread can send messages to it.
+ * The model runners themselves are never accessed by more than one thread, so
+ * they don't need to be synchronized, and their handlers are called by the
+ * thread of the shard.
+ *
+ * @param <K> the type of keys
+ */
+public class ShardedModelRunner<K> {
+  private final List<Shard> shards;
+  private final Function<? super K, ModelRunner> modelRunnerFactory;
+
+  /**
+   * Creates a sharded model runner with as many shards as there are available
+   * processors.
+   *
+   * @param modelRunnerFactory creates the model runner for a key, when the first
+   *                           message for the key is processed. The created
+   *                           model runner must already be running its model.
+   */
+  public ShardedModelRunner(Function<? super K, ModelRunner> modelRunnerFactory) {
+    this(Runtime.getRuntime().availableProcessors(), modelRunnerFactory);
+  }
+
+  /**
+   * Creates a sharded model runner with the specified number of shards.
+   *
+   * @param nrOfShards         the number of shards, and threads
+   * @param modelRunnerFactory creates the model runner for a key, when the first
+   *                           message for the key is processed. The created
+   *                           model runner must already be running its model.
+   */
+  public ShardedModelRunner(int nrOfShards, Function<? super K, ModelRunner> modelRunnerFactory) {
+    this(nrOfShards, BoundedEventQueue.DEFAULT_CAPACITY, modelRunnerFactory);
+  }
+
+  /**
+   * Creates a sharded model runner with the specified number of shards, whose
+   * mailboxes have the specified capacity.
+   *
+   * @param nrOfShards         the number of shards, and threads
+   * @param mailboxCapacity    the maximum number of messages waiting in the
+   *                           mailbox of a shard
+   * @param modelRunnerFactory creates the model runner for a key, when the first
+   *                           message for the key is processed. The created
+   *                           model runner must already be running its model.
+   */
+  public ShardedModelRunner(int nrOfShards, int mailboxCapacity,
+    Function<? super K, ModelRunner> modelRunnerFactory) {
+    if (nrOfShards <= 0) {
+      throw new IllegalArgumentException("Number of shards must be positive, but was " + nrOfShards);
+    }
+    this.modelRunnerFactory = Objects.requireNonNull(modelRunnerFactory);
+    this.shards = new ArrayList<>(nrOfShards);
+    for (int shardIndex = 0; shardIndex < nrOfShards; shardIndex++) {
+      shards.add(new Shard(mailboxCapacity));
+    }
+  }
+
+  /**
+   * Sends a message to the model runner of the specified key. The model runner
+   * reacts to it as described in {@link ModelRunner#reactTo(Object)}, in the
+   * thread of the key's shard.
+   *
+   * <p>
+   * If the mailbox of the shard is full, this method waits until there is space
+   * in it.
+   *
+   * @param <T>     the type of message
+   * @param <U>     the return type that you as the user expects.
+   * @param key     the key that identifies the model runner
+   * @param message the message object
+   * @return a future that is completed with the event that was published
+   *         (latest) if the system reacted, or an empty Optional. The future is
+   *         completed exceptionally if the model runner threw an exception.
+   * @throws IllegalStateException if the sharded model runner has been stopped
+   */
+  public <T, U> CompletableFuture<Optional<U>> reactTo(K key, T message) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(message);
+
+    CompletableFuture<Optional<U>> futureEvent = new CompletableFuture<>();
+    shardOf(key).send(new Envelope<>(key, message, futureEvent));
+    return futureEvent;
+  }
+
+  /**
+   * Removes the model runner of the specified key, after the messages sent
+   * before have been processed. If another message is sent for the key later,
+   * a new model runner is created for it.
+   *
+   * @param key the key that identifies the model runner
+   * @throws IllegalStateException if the sharded model runner has been stopped
+   */
+  public void remove(K key) {
+    Objects.requireNonNull(key);
+    shardOf(key).send(new Envelope<>(key, null, null));
+  }
+
+  /**
+   * Stops the sharded model runner. The messages that have already been sent
+   * are processed. Then, the threads of the shards end.
+   */
+  public void stop() {
+    for (Shard shard : shards) {
+      shard.stop();
+    }
+  }
+
+  /**
+   * Returns the number of shards.
+   *
+   * @return the number of shards
+   */
+  public int getNrOfShards() {
+    return shards.size();
+  }
+
+  /**
+   * Returns the index of the shard that processes the messages for the
+   * specified key.
+   *
+   * @param key the key that identifies the model runner
+   * @return the shard index, between 0 and the number of shards - 1
+   */
+  public int getShardIndex(K key) {
+    int hashCode = key.hashCode();
+    int spreadHashCode = hashCode ^ (hashCode >>> 16);
+    return Math.floorMod(spreadHashCode, shards.size());
+  }
+
+  private Shard shardOf(K key) {
+    return shards.get(getShardIndex(key));
+  }
+
+  private class Shard {
+    private final BoundedEventQueue mailbox;
+    // Only accessed by the thread of the mailbox
+    private final Map<K, ModelRunner> modelRunners;
+
+    Shard(int mailboxCapacity) {
+      this.modelRunners = new HashMap<>();
+      this.mailbox = new BoundedEventQueue(this::process, mailboxCapacity, WaitStrategy.blocking());
+    }
+
+    void send(Envelope<K, ?> envelope) {
+      try {
+        mailbox.put(envelope);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        envelope.completeExceptionally(e);
+      }
+    }
+
+    void stop() {
+      mailbox.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void process(Object mailboxItem) {
+      Envelope<K, Object> envelope = (Envelope<K, Object>) mailboxItem;
+      if (envelope.isRemoval()) {
+        modelRunners.remove(envelope.key);
+        return;
+      }
+
+      // Errors are caught as well, so that the future is completed and the
+      // shard goes on processing the messages of the other keys
+      try {
+        ModelRunner modelRunner = modelRunners.computeIfAbsent(envelope.key, modelRunnerFactory);
+        Optional<Object> event = modelRunner.reactTo(envelope.message);
+        envelope.futureEvent.complete(event);
+      } catch (Throwable t) {
+        envelope.completeExceptionally(t);
+      }
+    }
+  }
+
+  private static class Envelope<K, U> {
+    private final K key;
+    private final Object message;
+    private final CompletableFuture<Optional<U>> futureEvent;
+
+    Envelope(K key, Object message, CompletableFuture<Optional<U>> futureEvent) {
+      this.key = key;
+      this.message = message;
+      this.futureEvent = futureEvent;
+    }
+
+    boolean isRemoval() {
+      return message == null;
+    }
+
+    void completeExceptionally(Throwable t) {
+      if (futureEvent != null) {
+        futureEvent.completeExceptionally(t);
+      }
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.requirementsascode.exception.InfiniteRepetition;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+
+/**
+ * A model runner that runs a single model for a very large number of sessions
+ * (i.e. user journeys), concurrently.
+ *
+ * <p>
+ * A {@link ModelRunner} contains everything needed to run a single user
+ * journey. A shared model runner separates the parts that can be shared from
+ * the state of a single session: the model and the configured handlers are
+ * shared by all sessions. The state of each session is kept in a tiny
+ * {@link ModelRunnerState} object, that only holds the id of the latest step
+ * run, the running flag and the actor the session runs as.
+ *
+ * <p>
+ * A shared model runner is thread-safe. Different sessions can be run in
+ * different threads at the same time. A single session must not be run by
+ * several threads at the same time.
+ *
+ * <p>
+ * Internally, each thread borrows a model runner created by the model runner
+ * factory, and loads the session's state into it before it reacts to a
+ * message. Note that this means that the handlers configured for the model
+ * runners are shared as well, by all sessions run in a thread.
+ */
+public class SharedModelRunner {
+  private final Model model;
+  private final Supplier<ModelRunner> modelRunnerFactory;
+  private final ThreadLocal<ModelRunner> idleModelRunner;
+
+  /**
+   * Creates a shared model runner for the specified model, with default
+   * handlers.
+   *
+   * @param model the model that defines the behavior of all sessions
+   */
+  public SharedModelRunner(Model model) {
+    this(model, ModelRunner::new);
+  }
+
+  /**
+   * Creates a shared model runner for the specified model. The specified
+   * factory creates the model runners that the sessions are run with. Use it to
+   * configure the handlers, e.g. with {@link ModelRunner#handleWith}.
+   *
+   * @param model              the model that defines the behavior of all
+   *                           sessions
+   * @param modelRunnerFactory creates the model runners that run the sessions
+   */
+  public SharedModelRunner(Model model, Supplier<ModelRunner> modelRunnerFactory) {
+    this.model = Objects.requireNonNull(model).compile();
+    this.modelRunnerFactory = Objects.requireNonNull(modelRunnerFactory);
+    this.idleModelRunner = ThreadLocal.withInitial(modelRunnerFactory);
+  }
+
+  /**
+   * Starts a new session, run as the default user.
+   *
+   * <p>
+   * As a side effect, this method immediately triggers "autonomous system
+   * reactions".
+   *
+   * @return the state of the new session
+   */
+  public ModelRunnerState start() {
+    return startAs(model.getUserActor());
+  }
+
+  /**
+   * Starts a new session, run as the specified actor. The session will only
+   * react in steps that have explicitly set the specified actor as one of its
+   * actors, or that are declared as "autonomous system reactions".
+   *
+   * <p>
+   * As a side effect, this method immediately triggers "autonomous system
+   * reactions".
+   *
+   * @param runActor the actor to run the session as
+   * @return the state of the new session
+   */
+  public ModelRunnerState startAs(AbstractActor runActor) {
+    Objects.requireNonNull(runActor);
+    ModelRunnerState state = new ModelRunnerState();
+    state.setRunActorId(model.getCompiledModel().getRunActorId(runActor));
+    restart(state);
+    return state;
+  }
+
+  /**
+   * Restarts the specified session, resetting it to its original defaults ("no
+   * flow has been run, no step has been run").
+   *
+   * @param state the state of the session
+   */
+  public void restart(ModelRunnerState state) {
+    Objects.requireNonNull(state);
+    state.setLatestStepId(ModelRunnerState.NO_STEP);
+
+    ModelRunner modelRunner = acquireModelRunner();
+    try {
+      modelRunner.loadState(model, state);
+      modelRunner.runModel(model);
+    } finally {
+      modelRunner.saveState(state);
+      releaseModelRunner(modelRunner);
+    }
+  }
+
+  /**
+   * Stops the specified session. It will not be reacting to messages, until
+   * {@link #restart(ModelRunnerState)} is called.
+   *
+   * @param state the state of the session
+   */
+  public void stop(ModelRunnerState state) {
+    Objects.requireNonNull(state);
+    state.setRunning(false);
+  }
+
+  /**
+   * Provides a message to the specified session. The session reacts to it as
+   * described in {@link ModelRunner#reactTo(Object)}.
+   *
+   * @param <T>     the type of message
+   * @param <U>     the return type that you as the user expects.
+   * @param state   the state of the session
+   * @param message the message object
+   * @return the event that was published (latest) if the system reacted, or an
+   *         empty Optional.
+   * @throws MoreThanOneStepCanReact when more than one step can react
+   * @throws InfiniteRepetition      when a step has an always true condition, or
+   *                                 there is an infinite loop.
+   * @throws ClassCastException      when type of the returned instance isn't U
+   */
+  public <T, U> Optional<U> reactTo(ModelRunnerState state, T message) {
+    U publishedEvent = reactToRaw(state, message);
+    return Optional.ofNullable(publishedEvent);
+  }
+
+  /**
+   * Provides a message to the specified session. The session reacts to it as
+   * described in {@link ModelRunner#reactToRaw(Object)}, without wrapping the
+   * published event in an Optional.
+   *
+   * @param <T>     the type of message
+   * @param <U>     the return type that you as the user expects.
+   * @param state   the state of the session
+   * @param message the message object
+   * @return the event that was published (latest) if the system reacted, or
+   *         null.
+   * @throws MoreThanOneStepCanReact when more than one step can react
+   * @throws InfiniteRepetition      when a step has an always true condition, or
+   *                                 there is an infinite loop.
+   * @throws ClassCastException      when type of the returned instance isn't U
+   */
+  public <T, U> U reactToRaw(ModelRunnerState state, T message) {
+    Objects.requireNonNull(state);
+    Objects.requireNonNull(message);
+
+    ModelRunner modelRunner = acquireModelRunner();
+    try {
+      modelRunner.loadState(model, state);
+      return modelRunner.reactToRaw(message);
+    } finally {
+      modelRunner.saveState(state);
+      releaseModelRunner(modelRunner);
+    }
+  }
+
+  /**
+   * Returns whether at least one step can react to a message of the specified
+   * class, in the specified session.
+   *
+   * @see ModelRunner#canReactTo(Class)
+   *
+   * @param state        the state of the session
+   * @param messageClass the type of message to check steps for
+   * @return true if the session is running and at least one step can react,
+   *         false otherwise
+   */
+  public boolean canReactTo(ModelRunnerState state, Class<? extends Object> messageClass) {
+    Objects.requireNonNull(state);
+    Objects.requireNonNull(messageClass);
+
+    ModelRunner modelRunner = acquireModelRunner();
+    try {
+      modelRunner.loadState(model, state);
+      return modelRunner.canReactTo(messageClass);
+    } finally {
+      releaseModelRunner(modelRunner);
+    }
+  }
+
+  /**
+   * Returns the latest step that has been run in the specified session.
+   *
+   * @param state the state of the session
+   * @return the latest step run
+   */
+  public Optional<Step> getLatestStep(ModelRunnerState state) {
+    Objects.requireNonNull(state);
+    int latestStepId = state.getLatestStepId();
+    Step latestStep = latestStepId == ModelRunnerState.NO_STEP ? null
+      : model.getCompiledModel().getStep(latestStepId);
+    return Optional.ofNullable(latestStep);
+  }
+
+  /**
+   * Returns the model shared by all sessions.
+   *
+   * @return the model
+   */
+  public Model getModel() {
+    return model;
+  }
+
+  // If a session is run from within a system reaction of another session in the
+  // same thread, the thread's model runner is in use. A new runner is created
+  // for the nested session then.
+  private ModelRunner acquireModelRunner() {
+    ModelRunner modelRunner = idleModelRunner.get();
+    if (modelRunner == null) {
+      modelRunner = modelRunnerFactory.get();
+    } else {
+      idleModelRunner.set(null);
+    }
+    return modelRunner;
+  }
+
+  private void releaseModelRunner(ModelRunner modelRunner) {
+    idleModelRunner.set(modelRunner);
+  }
+}
@@ -0,0 +1,42 @@
+package org.requirementsascode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A condition whose result only depends on the state identified by the state
+ * keys. A runner caches its result until a step that touches one of the keys
+ * has run, or the keys are touched explicitly.
+ *
+ * @see Condition#dependsOn(Condition, String...)
+ * @see ModelRunner#touch(String...)
+ */
+final class StateDependentCondition implements Condition {
+  private final Condition condition;
+  private final Set<String> stateKeys;
+
+  StateDependentCondition(Condition condition, String[] stateKeys) {
+    this.condition = Objects.requireNonNull(condition);
+    Set<String> keys = new LinkedHashSet<>();
+    for (String stateKey : stateKeys) {
+      keys.add(Objects.requireNonNull(stateKey));
+    }
+    this.stateKeys = Collections.unmodifiableSet(keys);
+  }
+
+  @Override
+  public boolean evaluate() {
+    return condition.evaluate();
+  }
+
+  Set<String> getStateKeys() {
+    return stateKeys;
+  }
+
+  boolean dependsOnAny(String[] touchedStateKeys) {
+    return Arrays.stream(touchedStateKeys).anyMatch(stateKeys::contains);
+  }
+}
@@ -25,6 +25,8 @@ public abstract class Step extends ModelElement{
 	private SystemReaction<?> systemReaction;
 	private AbstractActor publishTo;
   private Condition aCase;
+  private String[] touchedStateKeys;
+  private int id;
 
 	/**
 	 * Creates a step with the specified name that belongs to the specified use
@@ -38,6 +40,7 @@ public abstract class Step extends ModelElement{
 		super(stepName, useCase.getModel());
 		this.useCase = useCase;
 		this.condition = condition;
+		this.touchedStateKeys = new String[0];
 	}
 
 	public abstract Predicate<ModelRunner> getPredicate();
@@ -50,10 +53,8 @@ public abstract class Step extends ModelElement{
 		return Optional.ofNullable(condition);
 	}
 	
-  protected Predicate<ModelRunner> isConditionTrue() {
-    Condition conditionOrElseTrue = getCondition().orElse(() -> true);
-    Predicate<ModelRunner> flowCondition = toPredicate(conditionOrElseTrue);
-    return flowCondition;
+  boolean isConditionTrue(ModelRunner modelRunner) {
+    return condition == null || modelRunner.evaluateCondition(this, condition, false);
   }
 
 	public AbstractActor[] getActors() {
@@ -62,6 +63,7 @@ public abstract class Step extends ModelElement{
 
 	public void setActors(AbstractActor[] actors) {
     this.actors = actors;
+    getModel().invalidate();
 	}
 
 	public Class<?> getMessageClass() {
@@ -70,6 +72,7 @@ public abstract class Step extends ModelElement{
 
 	public void setMessageClass(Class<?> eventClass) {
 		this.messageClass = eventClass;
+		getModel().invalidate();
 	}
 
 	public SystemReaction<?> getSystemReaction() {
@@ -92,10 +95,6 @@ public abstract class Step extends ModelElement{
 		this.systemReaction = new SystemReaction<>(systemReaction);
 	}
 
-	protected static Predicate<ModelRunner> toPredicate(Condition condition) {
-		return modelRunner -> condition.evaluate();
-	}
-
 	public Optional<AbstractActor> getPublishTo() {
 		return Optional.ofNullable(publishTo);
 	}
@@ -111,4 +110,43 @@ public abstract class Step extends ModelElement{
   public Optional<Condition> getCase(){
     return Optional.ofNullable(aCase);
   }
+
+  /**
+   * Declares that the system reaction of this step changes the state
+   * identified by the specified keys. After the step has run, a model runner
+   * evaluates the conditions that depend on the keys again.
+   *
+   * @see Condition#dependsOn(Condition, String...)
+   * @param stateKeys the keys of the state the system reaction changes
+   */
+  public void setTouchedStateKeys(String... stateKeys) {
+    this.touchedStateKeys = stateKeys.clone();
+    getModel().invalidate();
+  }
+
+  public String[] getTouchedStateKeys() {
+    return touchedStateKeys.clone();
+  }
+
+  boolean isTheCase() {
+    return aCase == null || aCase.evaluate();
+  }
+
+  AbstractActor getPublishToOrNull() {
+    return publishTo;
+  }
+
+  /**
+   * Returns the integer id of the step. The id is the index of the step in the
+   * compiled model, and is assigned when the model is compiled.
+   * 
+   * @return the step id
+   */
+  int getId() {
+    return id;
+  }
+
+  void setId(int id) {
+    this.id = id;
+  }
 }
@@ -2,7 +2,6 @@ package org.requirementsascode;
 
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 /**
  * Use an instance of this class if you want to find out the details about the
@@ -32,8 +31,8 @@ public class StepToBeRun{
 	
 	private Object runSystemReactionOfStep() {
 		@SuppressWarnings("unchecked")
-		Function<Object, Object> systemReactionFunction = (Function<Object, Object>) step.getSystemReaction();
-		setMessageToBePublished(systemReactionFunction.apply(message));
+		SystemReaction<Object> systemReaction = (SystemReaction<Object>) step.getSystemReaction();
+		setMessageToBePublished(systemReaction.apply(message));
 		return messageToBePublished;
 	}
 	
@@ -45,6 +44,10 @@ public class StepToBeRun{
 	public Optional<Object> getMessageToBePublished(){
 	  return Optional.ofNullable(messageToBePublished);
 	}
+
+	Object getMessageToBePublishedOrNull() {
+	  return messageToBePublished;
+	}
 	
 	/**
 	 * Alter the message to be published after the handleWith() method completes.
@@ -66,6 +69,10 @@ public class StepToBeRun{
 		return step.getName();
 	}
 
+	Step getStep() {
+		return step;
+	}
+
 	/**
 	 * Returns the precondition that needs to be true to trigger the system reaction
 	 * when {@link #run()} is called.
@@ -13,40 +13,52 @@ import java.util.function.Supplier;
  * specified via .system(..) or .systemPublish() by the user of the library.
  * That element is called modelObject.
  * 
+ * The kind of the model object is determined once, when the system reaction is created. Applying the
+ * system reaction then calls the model object directly, instead of through a chain of wrapping functions.
+ * So there is only one interface call per reaction whose target depends on the step, which keeps the
+ * call of {@link #apply(Object)} itself monomorphic.
+ * 
  * @author b_muth
  *
  * @param <T> the kind of message that is the input for this system reactions
  */
 public class SystemReaction<T> implements Function<T, Object> {
-	private Object modelObject;
-	private Function<? super T, ?> internalFunction;
+	private static final int RUNNABLE = 0;
+	private static final int CONSUMER = 1;
+	private static final int SUPPLIER = 2;
+	private static final int FUNCTION = 3;
+
+	private final Object modelObject;
+	private final int kind;
+	private final Runnable runnable;
+	private final Consumer<? super T> consumer;
+	private final Supplier<?> supplier;
+	private final Function<? super T, ?> function;
 
 	SystemReaction(Consumer<? super T> modelObject) {
-		this.modelObject = Objects.requireNonNull(modelObject);
-		
-		Function<? super T, Object> nonPublishingReaction = message -> {
-			modelObject.accept(message);
-			return null;
-		};
-		this.internalFunction = nonPublishingReaction;
+		this(modelObject, CONSUMER, null, modelObject, null, null);
 	}
 
 	SystemReaction(Runnable modelObject) {
-		this((Consumer<? super T>) ignoredRunner -> modelObject.run());
-		this.modelObject = modelObject;
+		this(modelObject, RUNNABLE, modelObject, null, null, null);
 	}
 
 	SystemReaction(Supplier<?> modelObject) {
-		this.modelObject = Objects.requireNonNull(modelObject);
-		
-		Function<? super T, Object> publishingReaction = (Function<? super T, Object>) message -> modelObject.get();
-		this.internalFunction = publishingReaction;
+		this(modelObject, SUPPLIER, null, null, modelObject, null);
 	}
 
 	SystemReaction(Function<? super T, ?> modelObject) {
-		Objects.requireNonNull(modelObject);
-		this.modelObject = modelObject;
-		this.internalFunction = modelObject;
+		this(modelObject, FUNCTION, null, null, null, modelObject);
+	}
+
+	private SystemReaction(Object modelObject, int kind, Runnable runnable, Consumer<? super T> consumer,
+		Supplier<?> supplier, Function<? super T, ?> function) {
+		this.modelObject = Objects.requireNonNull(modelObject);
+		this.kind = kind;
+		this.runnable = runnable;
+		this.consumer = consumer;
+		this.supplier = supplier;
+		this.function = function;
 	}
 
 	public Object getModelObject() {
@@ -55,6 +67,17 @@ public class SystemReaction<T> implements Function<T, Object> {
 
 	@Override
 	public Object apply(T message) {
-		return internalFunction.apply(message);
+		switch (kind) {
+		case RUNNABLE:
+			runnable.run();
+			return null;
+		case CONSUMER:
+			consumer.accept(message);
+			return null;
+		case SUPPLIER:
+			return supplier.get();
+		default:
+			return function.apply(message);
+		}
 	}
-}
\ No newline at end of file
+}
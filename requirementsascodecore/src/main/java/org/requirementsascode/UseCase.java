@@ -115,6 +115,8 @@ public class UseCase extends ModelElement{
 		InterruptingFlowStep step = new InterruptingFlowStep(stepName, flow, flowPosition, condition);
 
 		saveModelElement(step, nameToStepMap);
+		flow.addStep(step);
+		getModel().invalidate();
 
 		return step;
 	}
@@ -140,6 +142,8 @@ public class UseCase extends ModelElement{
 	public InterruptableFlowStep newInterruptableFlowStep(String stepName, Flow flow, Condition optionalCondition) {
 		InterruptableFlowStep step = new InterruptableFlowStep(stepName, flow, optionalCondition);
 		saveModelElement(step, nameToStepMap);
+		flow.addStep(step);
+		getModel().invalidate();
 
 		return step;
 	}
@@ -155,6 +159,7 @@ public class UseCase extends ModelElement{
 	public FlowlessStep newFlowlessStep(String stepName, Condition optionalCondition) {
 		FlowlessStep step = new FlowlessStep(stepName, this, optionalCondition);
 		saveModelElement(step, nameToStepMap);
+		getModel().invalidate();
 
 		return step;
 	}
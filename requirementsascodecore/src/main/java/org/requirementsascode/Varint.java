@@ -0,0 +1,40 @@
+package org.requirementsascode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes non-negative ints with a variable number of bytes: 7 bits per byte,
+ * least significant group first, with the highest bit of each byte set if
+ * more bytes follow. Ints below 128 take a single byte.
+ */
+final class Varint {
+  static final int MAX_LENGTH = 5;
+
+  private Varint() {
+  }
+
+  static void put(ByteBuffer buffer, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative, but was " + value);
+    }
+    int remainingValue = value;
+    while ((remainingValue & ~0x7F) != 0) {
+      buffer.put((byte) ((remainingValue & 0x7F) | 0x80));
+      remainingValue >>>= 7;
+    }
+    buffer.put((byte) remainingValue);
+  }
+
+  static int get(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 7 * MAX_LENGTH; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new BufferUnderflowException();
+  }
+}
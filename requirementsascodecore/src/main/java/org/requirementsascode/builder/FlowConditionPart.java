@@ -45,6 +45,25 @@ public class FlowConditionPart {
 		return stepPart;
 	}
 	
+	/**
+	 * Declares that the flow's condition only depends on the state identified by
+	 * the specified keys. The model runner then caches its result across
+	 * messages, until a step that touches one of the keys has run.
+	 *
+	 * @param stateKeys the keys of the state the condition depends on
+	 * @return this condition part, to ease creation of the first step of the flow
+	 * @throws IllegalStateException if the flow has no condition
+	 * @see StepSystemPart#touches(String...)
+	 */
+	public FlowConditionPart dependsOn(String... stateKeys) {
+		Objects.requireNonNull(stateKeys);
+		if (optionalCondition == null) {
+			throw new IllegalStateException("Flow has no condition that could depend on state");
+		}
+		this.optionalCondition = Condition.dependsOn(optionalCondition, stateKeys);
+		return this;
+	}
+
 	Condition getOptionalCondition() {
 		return optionalCondition;
 	}
@@ -107,6 +107,25 @@ public class FlowlessConditionPart {
 		return flowlessSystemPart;
 	}
 
+	/**
+	 * Declares that the condition only depends on the state identified by the
+	 * specified keys. The model runner then caches its result across messages,
+	 * until a step that touches one of the keys has run.
+	 *
+	 * @param stateKeys the keys of the state the condition depends on
+	 * @return a condition part with the state dependent condition
+	 * @throws IllegalStateException if there is no condition
+	 * @see FlowlessSystemPart#touches(String...)
+	 */
+	public FlowlessConditionPart dependsOn(String... stateKeys) {
+		Objects.requireNonNull(stateKeys);
+		if (optionalCondition == null) {
+			throw new IllegalStateException("There is no condition that could depend on state");
+		}
+		Condition stateDependentCondition = Condition.dependsOn(optionalCondition, stateKeys);
+		return flowlessConditionPart(stateDependentCondition, useCasePart, flowlessStepCounter);
+	}
+
 	Condition getOptionalCondition() {
 		return optionalCondition;
 	}
@@ -133,6 +133,20 @@ public class FlowlessSystemPart<T> {
 		UseCasePart newUseCasePart = useCasePart.getModelBuilder().useCase(useCaseName);
 		return new FlowlessUseCasePart(newUseCasePart);
 	}
+
+	/**
+	 * Declares that this step's system reaction changes the state identified by
+	 * the specified keys. After the step has run, the model runner evaluates the
+	 * conditions that depend on the keys again.
+	 *
+	 * @param stateKeys the keys of the changed state
+	 * @return this system part
+	 * @see FlowlessConditionPart#dependsOn(String...)
+	 */
+	public FlowlessSystemPart<T> touches(String... stateKeys) {
+		stepSystemPart.touches(stateKeys);
+		return this;
+	}
 	
 	/** Specifies the recipient of the message.
 	 * 
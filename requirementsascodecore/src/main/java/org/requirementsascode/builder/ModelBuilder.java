@@ -3,10 +3,11 @@ package org.requirementsascode.builder;
 import static org.requirementsascode.builder.UseCasePart.useCasePart;
 
 import org.requirementsascode.Condition;
-import org.requirementsascode.Flow;
+import org.requirementsascode.FlowStep;
 import org.requirementsascode.Model;
 import org.requirementsascode.Step;
 import org.requirementsascode.SystemReaction;
+import org.requirementsascode.UseCase;
 import org.requirementsascode.flowposition.FlowPosition;
 import org.requirementsascode.systemreaction.AbstractContinuesAfter;
 import org.requirementsascode.systemreaction.ContinuesAt;
@@ -98,43 +99,45 @@ public class ModelBuilder {
 	/**
 	 * Returns the model built so far.
 	 *
+	 * <p>
+	 * The names of the steps that flow positions and continuesAfter() /
+	 * continuesAt() refer to are resolved in a single pass over the steps of
+	 * the model, so that unknown steps are reported here. The model itself is
+	 * compiled when a model runner needs it first, and the flow position of a
+	 * step when it is checked first. So flows that are never reached don't cost
+	 * anything. Call {@link Model#compile()} to compile everything up front.
+	 *
 	 * @return the model
 	 */
 	public Model build() {
 	  // This is done lazily, only when building, to enable forward references (#92)
-	  resolveFlowPositions();
-	  resolveContinuesAfter();
-	  resolveContinuesAt();
-		return getModel();
+	  for (UseCase useCase : model.getUseCases()) {
+	    for (Step step : useCase.getSteps()) {
+	      resolveContinues(step);
+	      if (step instanceof FlowStep) {
+	        resolveFlowPosition((FlowStep) step);
+	      }
+	    }
+	  }
+	  return model;
 	}
 
-  private void resolveFlowPositions() {
-    model.getUseCases().stream()
-	    .flatMap(uc -> uc.getFlows().stream())
-	    .map(Flow::getFlowPosition)
-	    .filter(fp -> fp != null)
-	    .forEach(FlowPosition::resolveSteps);
+  // A continuesAt() adds the step to the flow position of the step it continues
+  // at, resolved already, so it doesn't matter whether that step comes earlier.
+  private void resolveContinues(Step step) {
+    SystemReaction<?> systemReaction = step.getSystemReaction();
+    Object modelObject = systemReaction == null ? null : systemReaction.getModelObject();
+    if (modelObject instanceof AbstractContinuesAfter) {
+      ((AbstractContinuesAfter) modelObject).resolvePreviousStep();
+    } else if (modelObject instanceof ContinuesAt) {
+      ((ContinuesAt<?>) modelObject).resolveContinueAtStep();
+    }
   }
-  
-  private void resolveContinuesAfter() {
-    model.getUseCases().stream()
-      .flatMap(uc -> uc.getSteps().stream())
-      .map(Step::getSystemReaction)
-      .filter(sr -> sr != null)
-      .map(SystemReaction::getModelObject)
-      .filter(obj -> obj instanceof AbstractContinuesAfter)
-      .map(obj -> (AbstractContinuesAfter)obj)
-      .forEach(AbstractContinuesAfter::resolvePreviousStep);
-  }
-  
-  private void resolveContinuesAt() {
-    model.getUseCases().stream()
-      .flatMap(uc -> uc.getSteps().stream())
-      .map(Step::getSystemReaction)
-      .filter(sr -> sr != null)
-      .map(SystemReaction::getModelObject)
-      .filter(obj -> obj instanceof ContinuesAt)
-      .map(obj -> (ContinuesAt<?>)obj)
-      .forEach(ContinuesAt::resolveContinueAtStep);
+
+  private void resolveFlowPosition(FlowStep step) {
+    FlowPosition flowPosition = step.getFlowPosition();
+    if (flowPosition != null) {
+      flowPosition.resolveSteps();
+    }
   }
 }
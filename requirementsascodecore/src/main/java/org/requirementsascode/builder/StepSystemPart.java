@@ -112,6 +112,20 @@ public class StepSystemPart<T> {
 		return this;
 	}
 	
+	/**
+	 * Declares that this step's system reaction changes the state identified by
+	 * the specified keys. After the step has run, the model runner evaluates the
+	 * conditions that depend on the keys again.
+	 *
+	 * @param stateKeys the keys of the changed state
+	 * @return the system part
+	 * @see Condition#dependsOn(Condition, String...)
+	 */
+	public StepSystemPart<T> touches(String... stateKeys) {
+		Objects.requireNonNull(stateKeys);
+		step.setTouchedStateKeys(stateKeys);
+		return this;
+	}
 
 	/** Specifies the recipient of the message.
 	 * 
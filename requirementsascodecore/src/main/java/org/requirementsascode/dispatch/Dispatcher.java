@@ -0,0 +1,42 @@
+package org.requirementsascode.dispatch;
+
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+
+/**
+ * Finds the steps that can possibly react to a message, instead of the model
+ * runner's dispatch index. The runner then checks the actors and predicates of
+ * these candidate steps, as usual.
+ *
+ * <p>
+ * The dispatch index resolves the class hierarchy of a message class once,
+ * and looks up the candidate steps in a map after that. A dispatcher that is
+ * generated for a specific model by the {@link DispatcherGenerator} compares
+ * the message class with the message classes of the model instead, so the JIT
+ * compiler can inline the whole lookup.
+ *
+ * @see ModelRunner#dispatchWith(Dispatcher)
+ */
+public interface Dispatcher {
+  /**
+   * Returns whether this dispatcher can be used to dispatch messages for the
+   * specified model, in its current version.
+   *
+   * @param model the model the runner runs
+   * @return true if the dispatcher can be used, false if the runner should use
+   *         its dispatch index instead
+   */
+  boolean isCurrentFor(Model model);
+
+  /**
+   * Returns the steps that can possibly react to messages of the specified
+   * class, in the order they have been defined in the model.
+   *
+   * @param messageClass the concrete class of the message
+   * @return the candidate steps, or null if the dispatcher doesn't know the
+   *         message class, and the runner should use its dispatch index instead.
+   *         The runner doesn't modify the returned array.
+   */
+  Step[] getCandidateSteps(Class<?> messageClass);
+}
@@ -0,0 +1,195 @@
+package org.requirementsascode.dispatch;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+import org.requirementsascode.exception.MissingUseCaseStepPart;
+
+/**
+ * Generates the Java source of a {@link Dispatcher} that is specialized for a
+ * model. Run it at build time, e.g. from a build task that builds the model and
+ * writes the source to a generated sources folder, and make the runner use the
+ * generated class:
+ *
+ * <pre>
+ * new DispatcherGenerator().writeTo(model, "com.example.ShopDispatcher", generatedSourcesFolder);
+ * ...
+ * modelRunner.dispatchWith(new ShopDispatcher(model)).run(model);
+ * </pre>
+ *
+ * <p>
+ * The generated dispatcher compares the class of a message with each message
+ * class of the model, and returns the candidate steps resolved at build time.
+ * The conditions and flow positions of the steps can't be generated, because
+ * they are defined at runtime. So the runner still checks them, as usual.
+ * Messages of classes that the generated class can't refer to, e.g. private
+ * classes, and messages of subclasses of the model's message classes are left
+ * to the runner's dispatch index.
+ */
+public class DispatcherGenerator {
+  private static final String INDENT = "  ";
+
+  /**
+   * Generates the source of a dispatcher for the specified model.
+   *
+   * @param model              the model
+   * @param qualifiedClassName the fully qualified name of the dispatcher class
+   * @return the source
+   * @throws MissingUseCaseStepPart if a step of the model has no message class
+   */
+  public String generate(Model model, String qualifiedClassName) {
+    Objects.requireNonNull(model);
+    Objects.requireNonNull(qualifiedClassName);
+
+    Step[] steps = model.getSteps().toArray(new Step[0]);
+    int lastDot = qualifiedClassName.lastIndexOf('.');
+    String packageName = lastDot < 0 ? "" : qualifiedClassName.substring(0, lastDot);
+    String simpleClassName = qualifiedClassName.substring(lastDot + 1);
+    List<Class<?>> messageClasses = dispatchedMessageClasses(steps, packageName);
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("import org.requirementsascode.Model;\n");
+    source.append("import org.requirementsascode.Step;\n");
+    source.append("import org.requirementsascode.dispatch.GeneratedDispatcher;\n\n");
+    source.append("/**\n");
+    source.append(" * Generated by {@link org.requirementsascode.dispatch.DispatcherGenerator}. Don't edit.\n");
+    source.append(" */\n");
+    source.append("public final class ").append(simpleClassName).append(" extends GeneratedDispatcher {\n");
+    appendStepSignatures(source, steps);
+    appendFields(source, messageClasses);
+    appendConstructor(source, simpleClassName, steps, messageClasses);
+    appendGetCandidateSteps(source, messageClasses);
+    source.append("}\n");
+    return source.toString();
+  }
+
+  /**
+   * Generates the source of a dispatcher for the specified model, and writes it
+   * to the package folder of the class below the specified source folder.
+   *
+   * @param model              the model
+   * @param qualifiedClassName the fully qualified name of the dispatcher class
+   * @param sourceFolder       the root folder of the generated sources
+   * @return the written source file
+   * @throws IOException if the file can't be written
+   */
+  public Path writeTo(Model model, String qualifiedClassName, Path sourceFolder) throws IOException {
+    String source = generate(model, qualifiedClassName);
+    Path sourceFile = sourceFolder.resolve(qualifiedClassName.replace('.', '/') + ".java");
+    Files.createDirectories(sourceFile.getParent());
+    Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+    return sourceFile;
+  }
+
+  private static List<Class<?>> dispatchedMessageClasses(Step[] steps, String packageName) {
+    Set<Class<?>> messageClasses = new LinkedHashSet<>();
+    for (Step step : steps) {
+      Class<?> messageClass = step.getMessageClass();
+      if (messageClass == null) {
+        throw new MissingUseCaseStepPart(step, "on/user");
+      }
+      if (!Modifier.isAbstract(messageClass.getModifiers()) && isAccessibleFrom(messageClass, packageName)) {
+        messageClasses.add(messageClass);
+      }
+    }
+    return new ArrayList<>(messageClasses);
+  }
+
+  private static boolean isAccessibleFrom(Class<?> messageClass, String packageName) {
+    if (messageClass.getCanonicalName() == null) {
+      return false;
+    }
+    boolean isSamePackage = packageName.equals(packageNameOf(messageClass));
+    for (Class<?> c = messageClass; c != null; c = c.getEnclosingClass()) {
+      int modifiers = c.getModifiers();
+      if (Modifier.isPrivate(modifiers) || !Modifier.isPublic(modifiers) && !isSamePackage) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String packageNameOf(Class<?> c) {
+    String className = c.getName();
+    int lastDot = className.lastIndexOf('.');
+    return lastDot < 0 ? "" : className.substring(0, lastDot);
+  }
+
+  // Same rules as the dispatch index: the system event of the autonomous system
+  // reactions only matches steps without a message, other messages match steps
+  // whose message class is the same class, a superclass or an interface.
+  private static List<Integer> candidateStepIndexes(Step[] steps, Class<?> messageClass) {
+    List<Integer> stepIndexes = new ArrayList<>();
+    for (int stepIndex = 0; stepIndex < steps.length; stepIndex++) {
+      Class<?> stepMessageClass = steps[stepIndex].getMessageClass();
+      boolean isCandidate = ModelRunner.class.equals(messageClass) ? ModelRunner.class.equals(stepMessageClass)
+        : stepMessageClass.isAssignableFrom(messageClass);
+      if (isCandidate) {
+        stepIndexes.add(stepIndex);
+      }
+    }
+    return stepIndexes;
+  }
+
+  private static void appendStepSignatures(StringBuilder source, Step[] steps) {
+    source.append(INDENT).append("private static final String[] STEP_SIGNATURES = {\n");
+    for (Step step : steps) {
+      source.append(INDENT).append(INDENT).append(stringLiteral(GeneratedDispatcher.stepSignature(step)))
+        .append(",\n");
+    }
+    source.append(INDENT).append("};\n\n");
+  }
+
+  private static void appendFields(StringBuilder source, List<Class<?>> messageClasses) {
+    for (int i = 0; i < messageClasses.size(); i++) {
+      source.append(INDENT).append("private final Step[] candidateSteps").append(i).append(";\n");
+    }
+    source.append("\n");
+  }
+
+  private static void appendConstructor(StringBuilder source, String simpleClassName, Step[] steps,
+    List<Class<?>> messageClasses) {
+    source.append(INDENT).append("public ").append(simpleClassName).append("(Model model) {\n");
+    source.append(INDENT).append(INDENT).append("super(model, STEP_SIGNATURES);\n");
+    for (int i = 0; i < messageClasses.size(); i++) {
+      source.append(INDENT).append(INDENT).append("this.candidateSteps").append(i).append(" = steps(");
+      List<Integer> stepIndexes = candidateStepIndexes(steps, messageClasses.get(i));
+      for (int j = 0; j < stepIndexes.size(); j++) {
+        source.append(j == 0 ? "" : ", ").append(stepIndexes.get(j));
+      }
+      source.append(");\n");
+    }
+    source.append(INDENT).append("}\n\n");
+  }
+
+  private static void appendGetCandidateSteps(StringBuilder source, List<Class<?>> messageClasses) {
+    source.append(INDENT).append("@Override\n");
+    source.append(INDENT).append("public Step[] getCandidateSteps(Class<?> messageClass) {\n");
+    for (int i = 0; i < messageClasses.size(); i++) {
+      source.append(INDENT).append(INDENT).append("if (messageClass == ")
+        .append(messageClasses.get(i).getCanonicalName()).append(".class) {\n");
+      source.append(INDENT).append(INDENT).append(INDENT).append("return candidateSteps").append(i).append(";\n");
+      source.append(INDENT).append(INDENT).append("}\n");
+    }
+    source.append(INDENT).append(INDENT).append("return null;\n");
+    source.append(INDENT).append("}\n");
+  }
+
+  private static String stringLiteral(String s) {
+    return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+  }
+}
@@ -0,0 +1,79 @@
+package org.requirementsascode.dispatch;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import org.requirementsascode.Model;
+import org.requirementsascode.Step;
+
+/**
+ * Base class of the dispatchers generated by the {@link DispatcherGenerator}.
+ *
+ * <p>
+ * A generated dispatcher refers to the steps of the model by their position.
+ * So when it's created, it checks that the steps of the model still have the
+ * use cases, names and message classes they had when the dispatcher was
+ * generated. If the model is changed after that, the dispatcher isn't current
+ * any more, and the runner falls back to its dispatch index.
+ */
+public abstract class GeneratedDispatcher implements Dispatcher {
+  private final Model model;
+  private final Collection<Step> modelSteps;
+  private final Step[] steps;
+
+  /**
+   * Creates a dispatcher for the specified model.
+   *
+   * @param model          the model
+   * @param stepSignatures the signatures of the model's steps when the
+   *                       dispatcher was generated, in model order
+   * @throws IllegalArgumentException if the steps of the model don't match the
+   *                                  signatures
+   */
+  protected GeneratedDispatcher(Model model, String[] stepSignatures) {
+    this.model = Objects.requireNonNull(model);
+    this.modelSteps = model.getSteps();
+    this.steps = modelSteps.toArray(new Step[0]);
+    verifySteps(stepSignatures);
+  }
+
+  private void verifySteps(String[] stepSignatures) {
+    if (steps.length != stepSignatures.length) {
+      throw new IllegalArgumentException("Dispatcher has been generated for " + stepSignatures.length
+        + " steps, but the model has " + steps.length + " steps");
+    }
+    for (int stepIndex = 0; stepIndex < steps.length; stepIndex++) {
+      String stepSignature = stepSignature(steps[stepIndex]);
+      if (!stepSignature.equals(stepSignatures[stepIndex])) {
+        throw new IllegalArgumentException("Dispatcher has been generated for step " + stepSignatures[stepIndex]
+          + ", but the model has step " + stepSignature);
+      }
+    }
+  }
+
+  // Use case name, step name and message class, e.g. "Use case/S1:com.example.EntersText"
+  static String stepSignature(Step step) {
+    Class<?> messageClass = step.getMessageClass();
+    String messageClassName = messageClass == null ? "" : messageClass.getName();
+    return step.getUseCase().getName() + "/" + step.getName() + ":" + messageClassName;
+  }
+
+  /**
+   * Returns the steps at the specified positions of the model.
+   *
+   * @param stepIndexes the positions of the steps, in model order
+   * @return the steps
+   */
+  protected final Step[] steps(int... stepIndexes) {
+    Step[] selectedSteps = new Step[stepIndexes.length];
+    for (int i = 0; i < stepIndexes.length; i++) {
+      selectedSteps[i] = steps[stepIndexes[i]];
+    }
+    return selectedSteps;
+  }
+
+  @Override
+  public final boolean isCurrentFor(Model model) {
+    return this.model == model && model.getSteps() == modelSteps;
+  }
+}
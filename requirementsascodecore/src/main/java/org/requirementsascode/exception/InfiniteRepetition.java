@@ -3,8 +3,11 @@ package org.requirementsascode.exception;
 import org.requirementsascode.Step;
 
 /**
- * Exception that is thrown when internally, a StackOverflowException occurs.
- * The likely cause is that a condition is always true.
+ * Exception that is thrown when the model runner would run more steps for a
+ * single message than its step limit allows. The likely cause is that a
+ * condition is always true.
+ * 
+ * @see org.requirementsascode.ModelRunner#limitStepsTo(int)
  * 
  * @author b_muth
  *
@@ -23,6 +23,11 @@ public class AfterSingleStep implements Predicate<ModelRunner>{
     this.stepName = stepName;
     this.useCase = useCase;
   }
+
+  public AfterSingleStep(FlowStep step) {
+    this(step.getName(), step.getUseCase());
+    this.step = step;
+  }
   
   public void resolveStep() {
     if (step == null) {
@@ -44,6 +49,16 @@ public class AfterSingleStep implements Predicate<ModelRunner>{
     return stepName;
   }
 
+  /**
+   * Returns the step, resolved by its name.
+   *
+   * @return the step, or null if this is the position before the first step
+   */
+  public FlowStep getStep() {
+    resolveStep();
+    return step;
+  }
+
   @Override
   public boolean test(ModelRunner modelRunner) {
     Step latestStepRun = modelRunner.getLatestStep().orElse(null);
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
+import org.requirementsascode.FlowStep;
 import org.requirementsascode.ModelRunner;
 import org.requirementsascode.UseCase;
 
@@ -38,6 +39,20 @@ public abstract class FlowPosition implements Predicate<ModelRunner> {
     return this;
   }
 
+  /**
+   * Adds the specified step as a step after which the runner is at the right
+   * position. As the step is known already, it doesn't need to be resolved by
+   * name.
+   *
+   * @param step the step
+   * @return this flow position
+   */
+  public FlowPosition orAfter(FlowStep step) {
+    AfterSingleStep afterSingleStep = new AfterSingleStep(step);
+    afterForEachSingleStep.add(afterSingleStep);
+    return this;
+  }
+
   public List<AfterSingleStep> getAfterForEachSingleStep() {
     return afterForEachSingleStep;
   }
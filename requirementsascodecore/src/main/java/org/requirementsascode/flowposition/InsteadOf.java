@@ -36,4 +36,14 @@ public class InsteadOf extends FlowPosition{
   public final String getStepName() {
     return stepName;
   }
+
+  /**
+   * Returns the step, resolved by its name.
+   *
+   * @return the step that this position is instead of
+   */
+  public FlowStep getStep() {
+    resolveSteps();
+    return step;
+  }
 }
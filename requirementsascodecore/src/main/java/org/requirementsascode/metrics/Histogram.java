@@ -0,0 +1,148 @@
+package org.requirementsascode.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of non-negative values, e.g. durations in
+ * nanoseconds, with a fixed relative precision.
+ *
+ * <p>
+ * Like an HDR histogram, the values are counted in buckets whose width grows
+ * with the magnitude of the values: each power of two is divided into 16
+ * buckets. So a value returned by {@link #getValueAtPercentile(double)} is at
+ * most 1/16 bigger than the recorded value it stands for. The buckets are
+ * allocated once, so recording a value doesn't allocate any objects. Values
+ * can be recorded by several threads concurrently. Recording only updates the
+ * bucket and the total, and the maximum if it has been exceeded, so the count
+ * is computed from the buckets when it's read.
+ */
+public class Histogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int NR_OF_BUCKETS = SUB_BUCKET_COUNT * (64 - SUB_BUCKET_BITS);
+
+  private final AtomicLongArray bucketCounts;
+  private final LongAdder total;
+  private final AtomicLong max;
+
+  public Histogram() {
+    this.bucketCounts = new AtomicLongArray(NR_OF_BUCKETS);
+    this.total = new LongAdder();
+    this.max = new AtomicLong();
+  }
+
+  /**
+   * Records the specified value.
+   *
+   * @param value the value. Negative values are recorded as 0.
+   */
+  public void record(long value) {
+    long nonNegativeValue = Math.max(0, value);
+    bucketCounts.incrementAndGet(getBucketIndex(nonNegativeValue));
+    total.add(nonNegativeValue);
+    updateMax(nonNegativeValue);
+  }
+
+  private void updateMax(long value) {
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  // Values below 16 have a bucket of their own. Above, the bucket is given by
+  // the position of the highest bit, and the 4 bits below it.
+  static int getBucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int highestBit = 63 - Long.numberOfLeadingZeros(value);
+    int shift = highestBit - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  // Returns the highest value that is counted in the bucket
+  static long getHighestValueOfBucket(int bucketIndex) {
+    if (bucketIndex < SUB_BUCKET_COUNT) {
+      return bucketIndex;
+    }
+    int shift = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+    long subBucket = SUB_BUCKET_COUNT + (bucketIndex % SUB_BUCKET_COUNT);
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    long count = 0;
+    for (int bucketIndex = 0; bucketIndex < NR_OF_BUCKETS; bucketIndex++) {
+      count += bucketCounts.get(bucketIndex);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sum of the recorded values.
+   *
+   * @return the total
+   */
+  public long getTotal() {
+    return total.sum();
+  }
+
+  /**
+   * Returns the biggest recorded value.
+   *
+   * @return the maximum, or 0 if no value has been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return the mean, or 0 if no value has been recorded
+   */
+  public double getMean() {
+    long currentCount = getCount();
+    return currentCount == 0 ? 0 : (double) getTotal() / currentCount;
+  }
+
+  /**
+   * Returns a value that the specified percentage of recorded values are lower
+   * than or equal to, within the precision of the histogram.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the value, or 0 if no value has been recorded
+   * @throws IllegalArgumentException if the percentile is out of range
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+
+    long[] counts = new long[NR_OF_BUCKETS];
+    long totalCount = 0;
+    for (int bucketIndex = 0; bucketIndex < NR_OF_BUCKETS; bucketIndex++) {
+      counts[bucketIndex] = bucketCounts.get(bucketIndex);
+      totalCount += counts[bucketIndex];
+    }
+    long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+
+    long cumulativeCount = 0;
+    for (int bucketIndex = 0; bucketIndex < NR_OF_BUCKETS; bucketIndex++) {
+      cumulativeCount += counts[bucketIndex];
+      if (cumulativeCount >= countAtPercentile) {
+        return Math.min(getHighestValueOfBucket(bucketIndex), getMax());
+      }
+    }
+    return 0;
+  }
+}
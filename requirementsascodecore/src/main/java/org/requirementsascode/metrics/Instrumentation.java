@@ -0,0 +1,146 @@
+package org.requirementsascode.metrics;
+
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+
+/**
+ * Callbacks that a model runner invokes at fixed points while reacting to a
+ * message, e.g. to collect metrics. All methods do nothing by default, so an
+ * implementation only overrides the ones it needs.
+ *
+ * <p>
+ * A dispatch is the runner's reaction to a single message: finding the step
+ * that can react, and running its system reaction. The messages published by
+ * the system reaction are dispatched afterwards, each in its own dispatch. The
+ * autonomous system reactions are dispatched with the runner as the message.
+ *
+ * <p>
+ * The callbacks are invoked on the thread that calls the runner, and must not
+ * call the runner. Times are measured with {@link System#nanoTime()}.
+ *
+ * @see ModelRunner#instrumentWith(Instrumentation)
+ * @see MetricsInstrumentation
+ */
+public interface Instrumentation {
+  /**
+   * Does nothing. The runner doesn't even measure times when it uses this
+   * instance.
+   */
+  Instrumentation NONE = new Instrumentation() {
+  };
+
+  /**
+   * Passed as the handler time for steps whose handler time the runner hasn't
+   * measured, see {@link #getStepSamplingInterval()}.
+   */
+  long NOT_MEASURED = -1;
+
+  /**
+   * Returns whether the runner calls {@link #dispatchStarted(Object)},
+   * {@link #conditionsEvaluated(Class, int, long)} and
+   * {@link #dispatchEnded(Object, long)}. If not, the runner doesn't measure the
+   * dispatch and condition times, which makes instrumentation cheaper, as
+   * reading the clock is one of the biggest costs. Only called when the
+   * instrumentation is registered with the runner.
+   *
+   * @return true by default
+   */
+  default boolean isDispatchInstrumented() {
+    return true;
+  }
+
+  /**
+   * Returns how often the runner measures the time it takes to handle a step.
+   * With an interval of n, the runner measures the handler time of about every
+   * nth step, chosen at random, and passes {@link #NOT_MEASURED} for the other
+   * steps. Reading the clock twice is the biggest cost of measuring a step, so
+   * sampling makes always-on instrumentation cheaper. Only called when the
+   * instrumentation is registered with the runner.
+   *
+   * @return 1 by default, i.e. each step is measured. At most 2^30.
+   */
+  default int getStepSamplingInterval() {
+    return 1;
+  }
+
+  /**
+   * Called when the runner starts to dispatch a message.
+   *
+   * @param message the message
+   */
+  default void dispatchStarted(Object message) {
+  }
+
+  /**
+   * Called after the runner has evaluated the conditions of the candidate steps
+   * for a message, i.e. of the steps that react to the message's class.
+   *
+   * @param messageClass       the class of the message
+   * @param nrOfCandidateSteps the number of candidate steps
+   * @param conditionNanos     the time it took to evaluate the conditions
+   */
+  default void conditionsEvaluated(Class<?> messageClass, int nrOfCandidateSteps, long conditionNanos) {
+  }
+
+  /**
+   * Called after the message handler of the runner has handled a step, which
+   * usually means running its system reaction.
+   *
+   * @param step         the step
+   * @param messageClass the class of the message that caused the step to run
+   * @param handlerNanos the time it took to handle the step, or
+   *                     {@link #NOT_MEASURED}
+   */
+  default void stepHandled(Step step, Class<?> messageClass, long handlerNanos) {
+  }
+
+  /**
+   * Called when the message handler of the runner has thrown an exception
+   * while handling a step, instead of {@link #stepHandled(Step, Class, long)}.
+   *
+   * @param step         the step
+   * @param messageClass the class of the message that caused the step to run
+   * @param handlerNanos the time until the exception has been thrown, or
+   *                     {@link #NOT_MEASURED}
+   * @param exception    the exception
+   */
+  default void stepFailed(Step step, Class<?> messageClass, long handlerNanos, Exception exception) {
+  }
+
+  /**
+   * Called before the runner publishes a message returned by a system
+   * reaction.
+   *
+   * @param step    the step whose system reaction returned the message
+   * @param message the message to be published
+   */
+  default void messagePublished(Step step, Object message) {
+  }
+
+  /**
+   * Called when no step reacts to a message that isn't a system event.
+   *
+   * @param message the message
+   */
+  default void messageUnhandled(Object message) {
+  }
+
+  /**
+   * Called when a system reaction throws an exception, before the exception
+   * is handled.
+   *
+   * @param exception the exception
+   */
+  default void exceptionThrown(Exception exception) {
+  }
+
+  /**
+   * Called when the runner has finished dispatching a message, even if an
+   * exception has been thrown.
+   *
+   * @param message       the message
+   * @param dispatchNanos the time the dispatch took
+   */
+  default void dispatchEnded(Object message, long dispatchNanos) {
+  }
+}
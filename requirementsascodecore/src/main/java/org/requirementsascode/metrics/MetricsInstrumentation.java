@@ -0,0 +1,206 @@
+package org.requirementsascode.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.requirementsascode.Step;
+
+/**
+ * Collects metrics about the dispatches of one or several model runners,
+ * without depending on a metrics library. Counters are {@link LongAdder}s,
+ * distributions are {@link Histogram}s. The times are in nanoseconds.
+ *
+ * <p>
+ * The dispatch and condition times are kept per message class, the handler
+ * times and the number of published messages per step. The histograms of a
+ * message class or step are created when it occurs for the first time. After
+ * that, collecting metrics doesn't allocate any objects.
+ *
+ * <p>
+ * Export the metrics by reading them periodically, e.g. into a metrics
+ * library's gauges.
+ */
+public class MetricsInstrumentation implements Instrumentation {
+  private final LongAdder nrOfDispatches;
+  private final LongAdder nrOfUnhandledMessages;
+  private final LongAdder nrOfExceptions;
+  private final ConcurrentMap<Class<?>, MessageClassMetrics> messageClassToMetrics;
+  private final ConcurrentMap<Step, StepMetrics> stepToMetrics;
+
+  public MetricsInstrumentation() {
+    this.nrOfDispatches = new LongAdder();
+    this.nrOfUnhandledMessages = new LongAdder();
+    this.nrOfExceptions = new LongAdder();
+    this.messageClassToMetrics = new ConcurrentHashMap<>();
+    this.stepToMetrics = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void conditionsEvaluated(Class<?> messageClass, int nrOfCandidateSteps, long conditionNanos) {
+    MessageClassMetrics metrics = messageClassMetrics(messageClass);
+    metrics.nrOfCandidateSteps.record(nrOfCandidateSteps);
+    metrics.conditionTime.record(conditionNanos);
+  }
+
+  @Override
+  public void stepHandled(Step step, Class<?> messageClass, long handlerNanos) {
+    stepMetrics(step).handlerTime.record(handlerNanos);
+  }
+
+  @Override
+  public void messagePublished(Step step, Object message) {
+    stepMetrics(step).nrOfPublishedMessages.increment();
+  }
+
+  @Override
+  public void messageUnhandled(Object message) {
+    nrOfUnhandledMessages.increment();
+  }
+
+  @Override
+  public void exceptionThrown(Exception exception) {
+    nrOfExceptions.increment();
+  }
+
+  @Override
+  public void dispatchEnded(Object message, long dispatchNanos) {
+    nrOfDispatches.increment();
+    messageClassMetrics(message.getClass()).dispatchTime.record(dispatchNanos);
+  }
+
+  // Looks up first, because computeIfAbsent() may lock even if the key is present
+  private MessageClassMetrics messageClassMetrics(Class<?> messageClass) {
+    MessageClassMetrics metrics = messageClassToMetrics.get(messageClass);
+    if (metrics == null) {
+      metrics = messageClassToMetrics.computeIfAbsent(messageClass, mc -> new MessageClassMetrics());
+    }
+    return metrics;
+  }
+
+  private StepMetrics stepMetrics(Step step) {
+    StepMetrics metrics = stepToMetrics.get(step);
+    if (metrics == null) {
+      metrics = stepToMetrics.computeIfAbsent(step, s -> new StepMetrics());
+    }
+    return metrics;
+  }
+
+  /**
+   * Returns the number of messages that have been dispatched.
+   *
+   * @return the number of dispatches
+   */
+  public long getNrOfDispatches() {
+    return nrOfDispatches.sum();
+  }
+
+  /**
+   * Returns the number of messages no step reacted to.
+   *
+   * @return the number of unhandled messages
+   */
+  public long getNrOfUnhandledMessages() {
+    return nrOfUnhandledMessages.sum();
+  }
+
+  /**
+   * Returns the number of exceptions thrown by system reactions.
+   *
+   * @return the number of exceptions
+   */
+  public long getNrOfExceptions() {
+    return nrOfExceptions.sum();
+  }
+
+  /**
+   * Returns the classes of the messages that have been dispatched so far.
+   *
+   * @return the message classes
+   */
+  public Set<Class<?>> getMessageClasses() {
+    return Collections.unmodifiableSet(messageClassToMetrics.keySet());
+  }
+
+  /**
+   * Returns the steps that have been handled so far.
+   *
+   * @return the steps
+   */
+  public Set<Step> getSteps() {
+    return Collections.unmodifiableSet(stepToMetrics.keySet());
+  }
+
+  /**
+   * Returns the times it took to dispatch messages of the specified class.
+   *
+   * @param messageClass the message class
+   * @return the histogram, which is empty if no message of the class has been
+   *         dispatched
+   */
+  public Histogram getDispatchTime(Class<?> messageClass) {
+    MessageClassMetrics metrics = messageClassToMetrics.get(messageClass);
+    return metrics == null ? new Histogram() : metrics.dispatchTime;
+  }
+
+  /**
+   * Returns the times it took to evaluate the conditions of the candidate steps
+   * for messages of the specified class.
+   *
+   * @param messageClass the message class
+   * @return the histogram, which is empty if no message of the class has been
+   *         dispatched
+   */
+  public Histogram getConditionTime(Class<?> messageClass) {
+    MessageClassMetrics metrics = messageClassToMetrics.get(messageClass);
+    return metrics == null ? new Histogram() : metrics.conditionTime;
+  }
+
+  /**
+   * Returns the numbers of candidate steps for messages of the specified class.
+   *
+   * @param messageClass the message class
+   * @return the histogram, which is empty if no message of the class has been
+   *         dispatched
+   */
+  public Histogram getNrOfCandidateSteps(Class<?> messageClass) {
+    MessageClassMetrics metrics = messageClassToMetrics.get(messageClass);
+    return metrics == null ? new Histogram() : metrics.nrOfCandidateSteps;
+  }
+
+  /**
+   * Returns the times it took to handle the specified step.
+   *
+   * @param step the step
+   * @return the histogram, which is empty if the step hasn't been handled
+   */
+  public Histogram getHandlerTime(Step step) {
+    StepMetrics metrics = stepToMetrics.get(step);
+    return metrics == null ? new Histogram() : metrics.handlerTime;
+  }
+
+  /**
+   * Returns the number of messages published by the system reaction of the
+   * specified step.
+   *
+   * @param step the step
+   * @return the number of published messages
+   */
+  public long getNrOfPublishedMessages(Step step) {
+    StepMetrics metrics = stepToMetrics.get(step);
+    return metrics == null ? 0 : metrics.nrOfPublishedMessages.sum();
+  }
+
+  private static class MessageClassMetrics {
+    private final Histogram dispatchTime = new Histogram();
+    private final Histogram conditionTime = new Histogram();
+    private final Histogram nrOfCandidateSteps = new Histogram();
+  }
+
+  private static class StepMetrics {
+    private final Histogram handlerTime = new Histogram();
+    private final LongAdder nrOfPublishedMessages = new LongAdder();
+  }
+}
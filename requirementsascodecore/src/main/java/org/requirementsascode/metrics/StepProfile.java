@@ -0,0 +1,130 @@
+package org.requirementsascode.metrics;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.requirementsascode.Flow;
+import org.requirementsascode.FlowStep;
+import org.requirementsascode.Step;
+import org.requirementsascode.UseCase;
+
+/**
+ * The invocations, exceptions and latencies of a single step, collected by a
+ * {@link StepProfiler}.
+ */
+public class StepProfile {
+  private final Step step;
+  private final LongAdder nrOfExceptions;
+  private final LongAdder nrOfUnmeasuredInvocations;
+  private final Histogram latency;
+
+  StepProfile(Step step) {
+    this.step = step;
+    this.nrOfExceptions = new LongAdder();
+    this.nrOfUnmeasuredInvocations = new LongAdder();
+    this.latency = new Histogram();
+  }
+
+  void record(long handlerNanos) {
+    if (handlerNanos == Instrumentation.NOT_MEASURED) {
+      nrOfUnmeasuredInvocations.increment();
+    } else {
+      latency.record(handlerNanos);
+    }
+  }
+
+  void recordException(long handlerNanos) {
+    record(handlerNanos);
+    nrOfExceptions.increment();
+  }
+
+  /**
+   * Returns the profiled step.
+   *
+   * @return the step
+   */
+  public Step getStep() {
+    return step;
+  }
+
+  /**
+   * Returns the name of the profiled step.
+   *
+   * @return the step name
+   */
+  public String getStepName() {
+    return step.getName();
+  }
+
+  /**
+   * Returns the use case that contains the profiled step.
+   *
+   * @return the use case
+   */
+  public UseCase getUseCase() {
+    return step.getUseCase();
+  }
+
+  /**
+   * Returns the flow that contains the profiled step.
+   *
+   * @return the flow, or an empty optional if the step is a flowless step
+   */
+  public Optional<Flow> getFlow() {
+    return step instanceof FlowStep ? Optional.of(((FlowStep) step).getFlow()) : Optional.empty();
+  }
+
+  /**
+   * Returns how often the step has been handled.
+   *
+   * @return the number of invocations, including the failed ones
+   */
+  public long getNrOfInvocations() {
+    return latency.getCount() + nrOfUnmeasuredInvocations.sum();
+  }
+
+  /**
+   * Returns how often handling the step has thrown an exception.
+   *
+   * @return the number of exceptions
+   */
+  public long getNrOfExceptions() {
+    return nrOfExceptions.sum();
+  }
+
+  /**
+   * Returns the total time spent handling the step, in nanoseconds. If not all
+   * invocations have been measured, the total is estimated from the measured
+   * ones.
+   *
+   * @return the total time
+   */
+  public long getTotalNanos() {
+    long nrOfMeasuredInvocations = latency.getCount();
+    if (nrOfMeasuredInvocations == 0) {
+      return 0;
+    }
+    long nrOfUnmeasured = nrOfUnmeasuredInvocations.sum();
+    long measuredTotalNanos = latency.getTotal();
+    return nrOfUnmeasured == 0 ? measuredTotalNanos
+      : Math.round((double) measuredTotalNanos * (nrOfMeasuredInvocations + nrOfUnmeasured) / nrOfMeasuredInvocations);
+  }
+
+  /**
+   * Returns the times it took to handle the step, in nanoseconds, of the
+   * measured invocations.
+   *
+   * @return the histogram
+   */
+  public Histogram getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String toString() {
+    String flowName = getFlow().map(Flow::getName).orElse("-");
+    return getUseCase().getName() + " / " + flowName + " / " + getStepName() + ": " + getNrOfInvocations()
+      + " invocations, " + getNrOfExceptions() + " exceptions, " + getTotalNanos() + " ns total, p99 "
+      + latency.getValueAtPercentile(99) + " ns";
+  }
+}
@@ -0,0 +1,154 @@
+package org.requirementsascode.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.Model;
+import org.requirementsascode.Step;
+
+/**
+ * Finds out which steps of a model take the most time, by collecting a
+ * {@link StepProfile} for each step: the number of invocations and exceptions,
+ * and a histogram of the latencies.
+ *
+ * <p>
+ * The profiles are created for all steps of the model up front. Profiling a
+ * step looks up its profile in a map that isn't modified afterwards, and
+ * updates lock-free counters. So the profiler can be used by several runners
+ * of the same model concurrently. Steps of other models are ignored.
+ *
+ * <p>
+ * The invocations and exceptions of each step are counted exactly, but by
+ * default only the handler time of about every 16th step is measured, and the
+ * total times are estimated from the measured ones. Measuring each step costs
+ * about 90 ns, mostly for reading the clock twice. With the default sampling
+ * interval, profiling costs about 15-30 ns per step, so it can stay on in
+ * production.
+ *
+ * <pre>
+ * StepProfiler stepProfiler = new StepProfiler(model);
+ * modelRunner.instrumentWith(stepProfiler).run(model);
+ * ...
+ * stepProfiler.getHottestSteps(10).forEach(System.out::println);
+ * </pre>
+ */
+public class StepProfiler implements Instrumentation {
+  /**
+   * The step sampling interval of a profiler created with
+   * {@link #StepProfiler(Model)}.
+   */
+  public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+
+  private final Map<Step, StepProfile> stepToProfile;
+  private final int samplingInterval;
+
+  /**
+   * Creates a profiler for the steps of the specified model, that measures the
+   * handler time of about every 16th step.
+   *
+   * @param model the model
+   */
+  public StepProfiler(Model model) {
+    this(model, DEFAULT_SAMPLING_INTERVAL);
+  }
+
+  /**
+   * Creates a profiler for the steps of the specified model, that measures the
+   * handler time of about every nth step, see
+   * {@link Instrumentation#getStepSamplingInterval()}. The invocations and
+   * exceptions are counted for all steps.
+   *
+   * @param model            the model
+   * @param samplingInterval the sampling interval n, 1 for measuring each step
+   * @throws IllegalArgumentException if the interval is not between 1 and 2^30
+   */
+  public StepProfiler(Model model, int samplingInterval) {
+    Objects.requireNonNull(model);
+    if (samplingInterval < 1 || samplingInterval > 1 << 30) {
+      throw new IllegalArgumentException("Sampling interval must be between 1 and 2^30, but was " + samplingInterval);
+    }
+    Map<Step, StepProfile> profiles = new IdentityHashMap<>();
+    for (Step step : model.getSteps()) {
+      profiles.put(step, new StepProfile(step));
+    }
+    this.stepToProfile = profiles;
+    this.samplingInterval = samplingInterval;
+  }
+
+  /**
+   * Returns the sampling interval the profiler has been created with.
+   */
+  @Override
+  public int getStepSamplingInterval() {
+    return samplingInterval;
+  }
+
+  /**
+   * Returns false, because the profiler only needs the handler times.
+   */
+  @Override
+  public boolean isDispatchInstrumented() {
+    return false;
+  }
+
+  @Override
+  public void stepHandled(Step step, Class<?> messageClass, long handlerNanos) {
+    StepProfile stepProfile = stepToProfile.get(step);
+    if (stepProfile != null) {
+      stepProfile.record(handlerNanos);
+    }
+  }
+
+  @Override
+  public void stepFailed(Step step, Class<?> messageClass, long handlerNanos, Exception exception) {
+    StepProfile stepProfile = stepToProfile.get(step);
+    if (stepProfile != null) {
+      stepProfile.recordException(handlerNanos);
+    }
+  }
+
+  /**
+   * Returns the profile of the specified step.
+   *
+   * @param step the step
+   * @return the profile, or an empty optional if the step isn't part of the
+   *         profiled model
+   */
+  public Optional<StepProfile> getProfile(Step step) {
+    return Optional.ofNullable(stepToProfile.get(step));
+  }
+
+  /**
+   * Returns the profiles of the steps that took the most time in total, in
+   * descending order. Steps that haven't been invoked are left out.
+   *
+   * @param maxNrOfSteps the maximum number of profiles to return
+   * @return the profiles
+   * @throws IllegalArgumentException if the maximum number is negative
+   */
+  public List<StepProfile> getHottestSteps(int maxNrOfSteps) {
+    if (maxNrOfSteps < 0) {
+      throw new IllegalArgumentException("Maximum number of steps must not be negative: " + maxNrOfSteps);
+    }
+    List<StepProfile> invokedProfiles = new ArrayList<>();
+    for (StepProfile stepProfile : stepToProfile.values()) {
+      if (stepProfile.getNrOfInvocations() > 0) {
+        invokedProfiles.add(stepProfile);
+      }
+    }
+
+    // The totals may change while sorting, so they are read once
+    Map<StepProfile, Long> profileToTotalNanos = new IdentityHashMap<>();
+    for (StepProfile stepProfile : invokedProfiles) {
+      profileToTotalNanos.put(stepProfile, stepProfile.getTotalNanos());
+    }
+    invokedProfiles.sort(Comparator.comparing(profileToTotalNanos::get, Collections.reverseOrder()));
+    return new ArrayList<>(invokedProfiles.subList(0, Math.min(maxNrOfSteps, invokedProfiles.size())));
+  }
+}
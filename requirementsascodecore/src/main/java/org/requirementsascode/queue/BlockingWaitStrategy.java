@@ -0,0 +1,46 @@
+package org.requirementsascode.queue;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Blocks the waiting thread until it is signaled.
+ */
+final class BlockingWaitStrategy implements WaitStrategy {
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition signaled = lock.newCondition();
+  private volatile int nrOfWaitingThreads;
+
+  // The number of waiting threads is increased before the condition is
+  // checked. So either the signaling thread sees the waiting thread, or the
+  // waiting thread sees that the condition is true.
+  @Override
+  public void waitFor(BooleanSupplier condition) throws InterruptedException {
+    if (condition.getAsBoolean()) {
+      return;
+    }
+    lock.lock();
+    try {
+      nrOfWaitingThreads++;
+      while (!condition.getAsBoolean()) {
+        signaled.await();
+      }
+    } finally {
+      nrOfWaitingThreads--;
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void signalAll() {
+    if (nrOfWaitingThreads > 0) {
+      lock.lock();
+      try {
+        signaled.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
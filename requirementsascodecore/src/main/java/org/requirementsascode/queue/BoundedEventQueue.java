@@ -0,0 +1,283 @@
+package org.requirementsascode.queue;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * A bounded event queue that forwards events to an event consumer, one at a
+ * time, in the order they have been put in the queue.
+ *
+ * <p>
+ * In contrast to {@link EventQueue}, the events are stored in a ring buffer
+ * with a fixed capacity. Several threads can put events in the queue at the
+ * same time without locking. A single consumer thread, owned by the queue,
+ * drains the events in batches and forwards them to the consumer. How the
+ * consumer thread waits for events when the queue is empty is defined by the
+ * {@link WaitStrategy}.
+ *
+ * <p>
+ * When the queue is full, {@link #offer(Object)} returns false, so that the
+ * producer can react to the back pressure, while {@link #put(Object)} waits
+ * until there is space in the queue.
+ *
+ * <p>
+ * After {@link #stop()} has been called, the queue doesn't accept events
+ * anymore. The events that have been accepted before are still forwarded to
+ * the consumer, then the consumer thread ends.
+ */
+public class BoundedEventQueue {
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final int MAX_BATCH_SIZE = 256;
+  private static final long STOPPED = 1L << 62;
+  private static final long PUT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+  private final Object[] events;
+  // The sequence of a slot is its position + 1 when an event has been put in
+  // it, and its position + capacity when the event has been taken out of it.
+  private final AtomicLongArray sequences;
+  private final int capacity;
+  private final int mask;
+  private final AtomicLong tail;
+  private volatile long head;
+
+  private final Consumer<Object> eventConsumer;
+  private final WaitStrategy waitStrategy;
+  private final BooleanSupplier isConsumable;
+  private final Thread consumerThread;
+
+  /**
+   * Creates an event queue with the default capacity, whose events will be
+   * consumed by the specified consumer. The consumer thread blocks while the
+   * queue is empty.
+   *
+   * @param eventConsumer the target of events
+   */
+  public BoundedEventQueue(Consumer<Object> eventConsumer) {
+    this(eventConsumer, DEFAULT_CAPACITY, WaitStrategy.blocking());
+  }
+
+  /**
+   * Creates an event queue whose events will be consumed by the specified
+   * consumer.
+   *
+   * @param eventConsumer the target of events
+   * @param capacity      the maximum number of events in the queue, rounded up
+   *                      to the next power of two
+   * @param waitStrategy  defines how the consumer thread waits for events
+   */
+  public BoundedEventQueue(Consumer<Object> eventConsumer, int capacity, WaitStrategy waitStrategy) {
+    if (capacity <= 0 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30, but was " + capacity);
+    }
+    this.capacity = nextPowerOfTwo(capacity);
+    this.mask = this.capacity - 1;
+    this.events = new Object[this.capacity];
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int position = 0; position < this.capacity; position++) {
+      sequences.set(position, position);
+    }
+    this.tail = new AtomicLong();
+
+    this.eventConsumer = Objects.requireNonNull(eventConsumer);
+    this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    this.isConsumable = this::isConsumable;
+    this.consumerThread = new Thread(this::consumeEvents, "BoundedEventQueue consumer");
+    consumerThread.start();
+  }
+
+  private static int nextPowerOfTwo(int value) {
+    return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  /**
+   * Puts an event in the queue, if there is space in it.
+   *
+   * @param event the event for the queue
+   * @return true if the event has been put in the queue, false if the queue is
+   *         full or has been stopped
+   */
+  public boolean offer(Object event) {
+    Objects.requireNonNull(event);
+
+    long position = tail.get();
+    while (true) {
+      if (isStopped(position)) {
+        return false;
+      }
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        // The slot still contains an event, so the queue is full
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+
+    int index = (int) (position & mask);
+    events[index] = event;
+    sequences.set(index, position + 1);
+    waitStrategy.signalAll();
+    return true;
+  }
+
+  /**
+   * Puts an event in the queue. If the queue is full, waits until there is
+   * space in it.
+   *
+   * @param event the event for the queue
+   * @throws InterruptedException  if the thread has been interrupted while
+   *                               waiting
+   * @throws IllegalStateException if the queue has been stopped
+   */
+  public void put(Object event) throws InterruptedException {
+    while (!offer(event)) {
+      if (isStopped()) {
+        throw new IllegalStateException("Event queue has been stopped");
+      }
+      LockSupport.parkNanos(this, PUT_PARK_NANOS);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * Stops accepting events. The events that are already in the queue are still
+   * provided to the consumer. Then, the consumer thread ends.
+   *
+   * <p>
+   * Unless it is called by the consumer thread itself, this method waits until
+   * the consumer thread has ended.
+   */
+  public void stop() {
+    long position = tail.get();
+    while (!isStopped(position) && !tail.compareAndSet(position, position | STOPPED)) {
+      position = tail.get();
+    }
+    waitStrategy.signalAll();
+
+    if (Thread.currentThread() != consumerThread) {
+      try {
+        consumerThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the queue has been stopped.
+   *
+   * @return true if stopped, false if not
+   */
+  public boolean isStopped() {
+    return isStopped(tail.get());
+  }
+
+  private static boolean isStopped(long position) {
+    return (position & STOPPED) != 0;
+  }
+
+  /**
+   * Returns whether this queue is empty.
+   *
+   * @return true if empty, false if not
+   */
+  public boolean isEmpty() {
+    return getSize() == 0;
+  }
+
+  /**
+   * Returns the number of events in the queue.
+   *
+   * @return the number of events
+   */
+  public int getSize() {
+    long size = (tail.get() & ~STOPPED) - head;
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  /**
+   * Returns the maximum number of events in the queue.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of events that can be put in the queue before it is
+   * full.
+   *
+   * @return the remaining capacity
+   */
+  public int getRemainingCapacity() {
+    return capacity - getSize();
+  }
+
+  private void consumeEvents() {
+    try {
+      while (true) {
+        if (drainBatch() == 0) {
+          long position = tail.get();
+          if (isStopped(position) && head == (position & ~STOPPED)) {
+            break;
+          }
+          waitStrategy.waitFor(isConsumable);
+        }
+      }
+    } catch (InterruptedException e) {
+      // The consumer thread has been interrupted, so it ends immediately
+    }
+  }
+
+  private boolean isConsumable() {
+    return isNextEventPut() || isStopped();
+  }
+
+  private boolean isNextEventPut() {
+    long position = head;
+    return sequences.get((int) (position & mask)) == position + 1;
+  }
+
+  private int drainBatch() {
+    long position = head;
+    int nrOfEvents = 0;
+    while (nrOfEvents < MAX_BATCH_SIZE) {
+      int index = (int) (position & mask);
+      if (sequences.get(index) != position + 1) {
+        break;
+      }
+      Object event = events[index];
+      events[index] = null;
+      sequences.lazySet(index, position + capacity);
+      position++;
+      nrOfEvents++;
+      consume(event);
+    }
+    head = position;
+    return nrOfEvents;
+  }
+
+  // The consumer thread survives exceptions and errors of the consumer, so
+  // that the events after them are consumed as well
+  private void consume(Object event) {
+    try {
+      eventConsumer.accept(event);
+    } catch (Throwable t) {
+      consumerThread.getUncaughtExceptionHandler().uncaughtException(consumerThread, t);
+    }
+  }
+}
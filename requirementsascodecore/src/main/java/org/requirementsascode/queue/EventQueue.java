@@ -10,6 +10,9 @@ import java.util.function.Consumer;
  * 
  * To do that, it internally runs its own event producer thread.
  * 
+ * For a bounded queue with less synchronization overhead, see
+ * {@link BoundedEventQueue}.
+ * 
  * @author b_muth
  *
  */
@@ -43,6 +46,7 @@ public class EventQueue {
 		try {
 			events.put(event);
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -57,6 +61,7 @@ public class EventQueue {
 			eventProducerThread.interrupt();
 			eventProducerThread.join();
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -74,7 +79,7 @@ public class EventQueue {
 	}
 
 	private class EventProducer implements Runnable {
-		private boolean isRunning = true;
+		private volatile boolean isRunning = true;
 
 		@Override
 		public void run() {
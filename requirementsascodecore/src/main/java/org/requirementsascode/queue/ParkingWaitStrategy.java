@@ -0,0 +1,32 @@
+package org.requirementsascode.queue;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks the waiting thread for a fixed time, then checks the condition again.
+ */
+final class ParkingWaitStrategy implements WaitStrategy {
+  private final long parkNanos;
+
+  ParkingWaitStrategy(long parkNanos) {
+    if (parkNanos <= 0) {
+      throw new IllegalArgumentException("Park time must be positive, but was " + parkNanos + "ns");
+    }
+    this.parkNanos = parkNanos;
+  }
+
+  @Override
+  public void waitFor(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      LockSupport.parkNanos(this, parkNanos);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
@@ -0,0 +1,21 @@
+package org.requirementsascode.queue;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checks the condition in a busy loop.
+ */
+final class SpinningWaitStrategy implements WaitStrategy {
+  @Override
+  public void waitFor(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  @Override
+  public void signalAll() {
+  }
+}
@@ -0,0 +1,61 @@
+package org.requirementsascode.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Defines how the consumer thread of a {@link BoundedEventQueue} waits for
+ * events, when the queue is empty.
+ *
+ * <p>
+ * Use {@link #blocking()} if latency isn't critical and the consumer thread
+ * should not use CPU time while waiting. Use {@link #parking(long, TimeUnit)}
+ * for lower latency at the cost of some CPU time, and {@link #spinning()} for
+ * the lowest latency, if a CPU core can be dedicated to the consumer thread.
+ */
+public interface WaitStrategy {
+  /**
+   * Waits until the specified condition is true.
+   *
+   * @param condition the condition to wait for
+   * @throws InterruptedException if the waiting thread has been interrupted
+   */
+  void waitFor(BooleanSupplier condition) throws InterruptedException;
+
+  /**
+   * Signals waiting threads that the condition they wait for may have become
+   * true.
+   */
+  void signalAll();
+
+  /**
+   * Creates a wait strategy that blocks the waiting thread, until it is
+   * signaled.
+   *
+   * @return the wait strategy
+   */
+  static WaitStrategy blocking() {
+    return new BlockingWaitStrategy();
+  }
+
+  /**
+   * Creates a wait strategy that parks the waiting thread for the specified
+   * time, and checks the condition again after that.
+   *
+   * @param parkTime the time to park
+   * @param timeUnit the unit of the park time
+   * @return the wait strategy
+   */
+  static WaitStrategy parking(long parkTime, TimeUnit timeUnit) {
+    return new ParkingWaitStrategy(timeUnit.toNanos(parkTime));
+  }
+
+  /**
+   * Creates a wait strategy that checks the condition in a busy loop.
+   *
+   * @return the wait strategy
+   */
+  static WaitStrategy spinning() {
+    return new SpinningWaitStrategy();
+  }
+}
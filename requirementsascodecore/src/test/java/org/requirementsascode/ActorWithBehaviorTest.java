@@ -5,6 +5,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.Before;
@@ -160,6 +163,42 @@ public class ActorWithBehaviorTest extends AbstractTestCase{
     assertRecordedStepNames(recordingTargetActor, CUSTOMER_ENTERS_TEXT);
   }
   
+  @Test
+  public void actorReactsRightAwayToMessageSentBackByOtherActor() {
+    List<String> reactions = new ArrayList<>();
+    Model targetBehavior = Model.builder()
+      .useCase(USE_CASE)
+        .basicFlow()
+          .step("B1").on(Integer.class).systemPublish(i -> {reactions.add("B got int"); return (long)i;}).to(sourceActor)
+          .step("B2").system(() -> reactions.add("B auto"))
+    .build();
+    targetActor.withBehavior(targetBehavior);
+
+    Model sourceBehavior = modelBuilder
+      .on(EntersText.class).systemPublish(et -> NUMBER).to(targetActor)
+      .on(Long.class).system(l -> reactions.add("A got long"))
+    .build();
+    sourceActor.withBehavior(sourceBehavior).reactTo(entersText());
+
+    assertEquals(Arrays.asList("B got int", "A got long", "B auto"), reactions);
+  }
+  
+  @Test
+  public void actorReturnsEventPublishedToOtherActorThatSentMessage() {
+    Model targetBehavior = Model.builder()
+      .on(Integer.class).system(i -> publishedString = sourceActor.<Long, String>reactTo((long)i).get())
+    .build();
+    targetActor.withBehavior(targetBehavior);
+
+    Model sourceBehavior = modelBuilder
+      .on(EntersText.class).systemPublish(et -> NUMBER).to(targetActor)
+      .on(Long.class).systemPublish(l -> TEXT)
+    .build();
+    sourceActor.withBehavior(sourceBehavior).reactTo(entersText());
+
+    assertEquals(TEXT, publishedString);
+  }
+  
   @Test
   public void actorReactsToFulfilledCondition() {
     Condition customerHasNotRunAnyStep = () -> !customer.getModelRunner().getLatestStep().isPresent();
@@ -4,10 +4,17 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.requirementsascode.builder.BuildModelTest;
+import org.requirementsascode.dispatch.DispatcherGeneratorTest;
+import org.requirementsascode.metrics.MetricsInstrumentationTest;
+import org.requirementsascode.metrics.StepProfilerTest;
+import org.requirementsascode.queue.BoundedEventQueueTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({ BuildModelTest.class, RunStopAndRestartTest.class, FlowTest.class, ReactToTypesTest.class, FlowlessTest.class,
 	ExceptionsThrownTest.class, ExceptionHandlingTest.class, NonStandardEventHandlingTest.class,
-	IncludesTest.class, RecordingTest.class, ActorWithBehaviorTest.class, FlowWithCaseStepTest.class })
+	IncludesTest.class, RecordingTest.class, ActorWithBehaviorTest.class, FlowWithCaseStepTest.class,
+	SharedModelRunnerTest.class, ModelRunnerSnapshotTest.class, JournalTest.class, ShardedModelRunnerTest.class, AsyncActorTest.class,
+	BoundedEventQueueTest.class, MetricsInstrumentationTest.class, StepProfilerTest.class,
+	DispatcherGeneratorTest.class, ComposedModelTest.class, ModelMigrationTest.class })
 public class AllTests {
 }
@@ -0,0 +1,191 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncActorTest extends AbstractTestCase {
+  private Thread reactingThread;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+  }
+
+  @Test
+  public void synchronousActorCompletesFutureImmediately() {
+    Model model = modelBuilder
+      .on(EntersText.class).systemPublish(publishEnteredTextAsString())
+      .build();
+    customer.withBehavior(model);
+
+    CompletableFuture<Optional<String>> futureEvent = customer.reactToAsync(entersText());
+    assertFalse(customer.isAsync());
+    assertTrue(futureEvent.isDone());
+    assertEquals(TEXT, futureEvent.join().get());
+  }
+
+  @Test
+  public void asyncActorReactsInOtherThread() throws Exception {
+    Model model = modelBuilder
+      .on(EntersText.class).systemPublish(et -> {
+        reactingThread = Thread.currentThread();
+        return et.value();
+      })
+      .build();
+    customer.withBehavior(model).async();
+
+    Optional<String> event = customer.<EntersText, String>reactToAsync(entersText()).get(1, TimeUnit.SECONDS);
+    assertTrue(customer.isAsync());
+    assertEquals(TEXT, event.get());
+    assertNotEquals(Thread.currentThread(), reactingThread);
+  }
+
+  @Test
+  public void reactToWaitsForAsyncActor() {
+    Model model = modelBuilder
+      .on(EntersText.class).systemPublish(publishEnteredTextAsString())
+      .build();
+    customer.withBehavior(model).async();
+
+    Optional<String> event = customer.reactTo(entersText());
+    assertEquals(TEXT, event.get());
+  }
+
+  @Test
+  public void asyncActorReactsToMessagesInOrder() {
+    List<Integer> numbers = new ArrayList<>();
+    Model model = modelBuilder
+      .on(EntersNumber.class).system(en -> numbers.add(en.value()))
+      .build();
+    customer.withBehavior(model).async();
+
+    CompletableFuture<Optional<Object>> futureEvent = null;
+    for (int i = 0; i < 1000; i++) {
+      futureEvent = customer.reactToAsync(new EntersNumber(i));
+    }
+    futureEvent.join();
+
+    assertEquals(1000, numbers.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) numbers.get(i));
+    }
+  }
+
+  @Test
+  public void publishingToAsyncActorDoesntWait() throws InterruptedException {
+    CountDownLatch targetMayReact = new CountDownLatch(1);
+    CountDownLatch targetHasReacted = new CountDownLatch(1);
+    Model targetBehavior = Model.builder()
+      .on(EntersText.class).system(et -> {
+        awaitUninterruptibly(targetMayReact);
+        targetHasReacted.countDown();
+      })
+      .build();
+    targetActor.withBehavior(targetBehavior).async();
+
+    Model sourceBehavior = modelBuilder
+      .on(EntersText.class).systemPublish(et -> et).to(targetActor)
+      .build();
+    sourceActor.withBehavior(sourceBehavior).reactTo(entersText());
+
+    assertEquals(1, targetHasReacted.getCount());
+    targetMayReact.countDown();
+    assertTrue(targetHasReacted.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void asyncActorCompletesFutureExceptionally() throws InterruptedException {
+    Model model = modelBuilder
+      .on(EntersText.class).system(et -> {
+        throw new IllegalStateException();
+      })
+      .build();
+    customer.withBehavior(model).async();
+
+    try {
+      customer.reactToAsync(entersText()).get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    try {
+      customer.reactTo(entersText());
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void asyncActorCompletesFutureIfReactionThrowsError() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(et -> {
+        throw new AssertionError();
+      })
+      .on(EntersNumber.class).systemPublish(en -> en.value())
+      .build();
+    customer.withBehavior(model).async(task -> {
+      Thread thread = new Thread(task);
+      thread.setUncaughtExceptionHandler((t, e) -> {});
+      thread.start();
+    });
+
+    try {
+      customer.reactTo(entersText());
+      fail();
+    } catch (AssertionError e) {
+      // expected
+    }
+
+    Optional<Integer> event = customer.reactTo(entersNumber());
+    assertEquals(NUMBER, (int) event.get());
+  }
+
+  @Test
+  public void passesExceptionOfAsyncReceiverToPublishersHandler() throws InterruptedException {
+    Model targetBehavior = Model.builder()
+      .on(EntersText.class).system(et -> {
+        throw new IllegalStateException();
+      })
+      .build();
+    targetActor.withBehavior(targetBehavior).async();
+
+    Model sourceBehavior = modelBuilder
+      .on(EntersText.class).systemPublish(et -> et).to(targetActor)
+      .build();
+    List<Throwable> exceptions = new ArrayList<>();
+    CountDownLatch exceptionHandled = new CountDownLatch(1);
+    sourceActor.withBehavior(sourceBehavior).getModelRunner().handleAsyncExceptionWith(exception -> {
+      exceptions.add(exception);
+      exceptionHandled.countDown();
+    });
+    sourceActor.reactTo(entersText());
+
+    assertTrue(exceptionHandled.await(1, TimeUnit.SECONDS));
+    assertEquals(1, exceptions.size());
+    assertTrue(exceptions.get(0) instanceof IllegalStateException);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.requirementsascode.builder.FlowPart;
 
 public class CanReactToTest extends AbstractTestCase {
 
@@ -82,6 +83,51 @@ public class CanReactToTest extends AbstractTestCase {
 		assertEquals(CUSTOMER_ENTERS_TEXT, stepsThatCanReact.iterator().next().getName().toString());
 	}
 
+	@Test
+	public void oneStepCanReactIfEventImplementsInterface() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(CharSequence.class).system(displaysConstantText())
+			.build();
+
+		modelRunner.run(model);
+
+		assertTrue(modelRunner.canReactTo(String.class));
+		assertTrue(modelRunner.canReactTo(StringBuilder.class));
+		assertFalse(modelRunner.canReactTo(Integer.class));
+	}
+
+	@Test
+	public void stepAddedAfterBuildCanReact() {
+		modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText());
+		Model model = modelBuilder.build();
+
+		modelRunner.run(model);
+		assertFalse(modelRunner.canReactTo(EntersNumber.class));
+
+		modelBuilder.useCase(USE_CASE_2)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber());
+
+		assertTrue(modelRunner.canReactTo(EntersNumber.class));
+	}
+
+	@Test
+	public void stepAddedToFlowAfterBuildCanReactAfterPreviousStep() {
+		FlowPart basicFlow = modelBuilder.useCase(USE_CASE).basicFlow();
+		basicFlow.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText());
+		Model model = modelBuilder.build();
+
+		modelRunner.run(model);
+		basicFlow.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber());
+		assertFalse(modelRunner.canReactTo(EntersNumber.class));
+
+		modelRunner.reactTo(entersText());
+		assertTrue(modelRunner.canReactTo(EntersNumber.class));
+	}
+
 	private class EntersTextSubClass extends EntersText {
 		public EntersTextSubClass(String text) {
 			super(text);
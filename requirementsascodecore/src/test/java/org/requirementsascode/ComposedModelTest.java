@@ -0,0 +1,142 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.builder.ModelBuilder;
+import org.requirementsascode.exception.ElementAlreadyInModel;
+
+public class ComposedModelTest extends AbstractTestCase {
+  private static final String ORDERING = "Ordering";
+  private static final String SHIPPING = "Shipping";
+
+  private Model orderingModel;
+  private Model shippingModel;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    orderingModel = Model.builder().useCase(ORDERING)
+      .basicFlow()
+        .step("O1").user(EntersText.class).system(displaysEnteredText())
+        .step("O2").user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+    shippingModel = Model.builder().useCase(SHIPPING)
+      .basicFlow().anytime()
+        .step("S1").on(Long.class).system(l -> displayedText = "Shipped " + l)
+        .step("S2").on(Double.class).system(d -> displayedText = "Delivered " + d)
+      .build();
+  }
+
+  @Test
+  public void containsUseCasesAndStepsOfParts() {
+    Model composedModel = Model.compose(orderingModel, shippingModel);
+
+    assertTrue(composedModel.hasUseCase(ORDERING));
+    assertTrue(composedModel.hasUseCase(SHIPPING));
+    assertSame(orderingModel.findUseCase(ORDERING), composedModel.findUseCase(ORDERING));
+
+    List<Step> expectedSteps = new ArrayList<>(orderingModel.getSteps());
+    expectedSteps.addAll(shippingModel.getSteps());
+    assertEquals(expectedSteps, new ArrayList<>(composedModel.getSteps()));
+  }
+
+  @Test
+  public void reactsToMessagesOfAllParts() {
+    modelRunner.run(Model.compose(orderingModel, shippingModel));
+
+    modelRunner.reactTo(entersText());
+    assertEquals(TEXT, displayedText);
+    modelRunner.reactTo(1L);
+    assertEquals("Shipped 1", displayedText);
+
+    assertRecordedStepNames("O1", "S1");
+  }
+
+  @Test
+  public void keepsFlowPositionsOfParts() {
+    modelRunner.run(Model.compose(orderingModel, shippingModel));
+
+    modelRunner.reactTo(entersText());
+    assertTrue(modelRunner.canReactTo(EntersNumber.class));
+    assertFalse(modelRunner.canReactTo(Double.class));
+
+    modelRunner.reactTo(1L);
+    assertFalse(modelRunner.canReactTo(EntersNumber.class));
+    assertTrue(modelRunner.canReactTo(Double.class));
+  }
+
+  @Test
+  public void flattensComposedParts() {
+    Model customerModel = Model.builder().useCase("Customer").on(Integer.class).system(i -> {}).build();
+    Model composedModel = Model.compose(Model.compose(orderingModel, shippingModel), customerModel);
+
+    assertEquals(3, composedModel.getUseCases().size());
+    assertEquals(5, composedModel.getSteps().size());
+  }
+
+  @Test(expected = ElementAlreadyInModel.class)
+  public void throwsExceptionIfPartsContainUseCaseWithSameName() {
+    Model otherOrderingModel = Model.builder().useCase(ORDERING).on(Long.class).system(l -> {}).build();
+    Model.compose(orderingModel, otherOrderingModel);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cantAddUseCaseToComposedModel() {
+    Model.compose(orderingModel, shippingModel).newUseCase("Billing");
+  }
+
+  @Test
+  public void restoresLatestStepOfSecondPart() {
+    Model composedModel = Model.compose(orderingModel, shippingModel);
+    modelRunner.run(composedModel).reactTo(1L);
+    ModelRunnerState snapshot = modelRunner.snapshot();
+
+    ModelRunner otherModelRunner = new ModelRunner().run(composedModel).restore(snapshot);
+    assertEquals("S1", otherModelRunner.getLatestStep().get().getName());
+    assertTrue(otherModelRunner.canReactTo(Double.class));
+  }
+
+  @Test
+  public void evaluatesConditionOfInterruptingFlowOncePerMessage() {
+    int[] nrOfEvaluations = new int[1];
+    Model interruptedModel = Model.builder().useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+      .flow(ALTERNATIVE_FLOW).anytime().condition(() -> ++nrOfEvaluations[0] > 0)
+        .step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+      .build();
+    modelRunner.run(Model.compose(shippingModel, interruptedModel));
+
+    nrOfEvaluations[0] = 0;
+    modelRunner.reactTo(entersText());
+
+    assertRecordedStepNames(CUSTOMER_ENTERS_ALTERNATIVE_TEXT);
+    assertEquals(1, nrOfEvaluations[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cantSnapshotLatestStepOfOtherModel() {
+    modelRunner.run(orderingModel).reactTo(entersText());
+    modelRunner.run(shippingModel).snapshot();
+  }
+
+  @Test
+  public void reflectsChangesOfParts() {
+    Model composedModel = Model.compose(orderingModel, shippingModel);
+    modelRunner.run(composedModel);
+    assertFalse(modelRunner.canReactTo(Integer.class));
+
+    new ModelBuilder(shippingModel).useCase("Billing").on(Integer.class).system(i -> {}).build();
+
+    assertTrue(composedModel.hasUseCase("Billing"));
+    assertTrue(modelRunner.canReactTo(Integer.class));
+  }
+}
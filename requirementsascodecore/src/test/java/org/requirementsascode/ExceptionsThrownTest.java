@@ -1,5 +1,7 @@
 package org.requirementsascode;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -14,6 +16,7 @@ import org.requirementsascode.exception.NoSuchElementInModel;
 public class ExceptionsThrownTest extends AbstractTestCase {
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
+	private int nrOfSteps;
 
 	@Before
 	public void setup() {
@@ -116,6 +119,39 @@ public class ExceptionsThrownTest extends AbstractTestCase {
 		modelRunner.run(model);
 	}
 
+	@Test
+	public void throwsExceptionWhenStepLimitIsExceeded() {
+		thrown.expect(InfiniteRepetition.class);
+		thrown.expectMessage("S1");
+
+		Model model = modelBuilder
+		  .condition(() -> nrOfSteps < 20).system(() -> nrOfSteps++)
+		.build();
+
+		modelRunner.limitStepsTo(10).run(model);
+	}
+
+	@Test(expected = StackOverflowError.class)
+	public void rethrowsStackOverflowErrorOfSystemReaction() {
+		Model model = modelBuilder
+		  .on(EntersText.class).system(et -> {
+		  	throw new StackOverflowError();
+		  })
+		.build();
+
+		modelRunner.run(model).reactTo(entersText());
+	}
+
+	@Test
+	public void doesntThrowExceptionForLongChainOfSystemReactions() {
+		Model model = modelBuilder
+		  .condition(() -> nrOfSteps < 50_000).system(() -> nrOfSteps++)
+		.build();
+
+		modelRunner.run(model);
+		assertEquals(50_000, nrOfSteps);
+	}
+
   @Test
   public void throwsExceptionWhenReactToIsCalledFromSystemReaction() {
     thrown.expect(NestedCallOfReactTo.class);
@@ -3,6 +3,7 @@ package org.requirementsascode;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -18,6 +19,7 @@ import org.requirementsascode.systemreaction.IgnoresIt;
 public class FlowTest extends AbstractTestCase{
 	private Actor secondActor;
 	private int timesDisplayed;
+	private int timesConditionEvaluated;
 		
 	@Before
 	public void setup() {
@@ -254,6 +256,58 @@ public class FlowTest extends AbstractTestCase{
     assertEquals(TEXT, actualText);
   }
 	
+	@Test
+	public void reactToRawReturnsPublishedEventOrNull() {
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.basicFlow()
+					.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).systemPublish(super.publishEnteredTextAsString())
+					.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+
+		modelRunner.run(model);
+		String actualText = modelRunner.reactToRaw(entersText());
+		assertEquals(TEXT, actualText);
+
+		Object noEvent = modelRunner.reactToRaw(entersNumber());
+		assertNull(noEvent);
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER);
+	}
+
+	@Test
+	public void reactToBatchReturnsAllPublishedEvents() {
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.basicFlow()
+					.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).systemPublish(super.publishEnteredTextAsString())
+					.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).systemPublish(super.publishEnteredTextAsString())
+					.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+
+		modelRunner.run(model);
+		List<Object> publishedEvents = modelRunner.reactToBatch(new Object[] {entersText(), entersText(), entersNumber()});
+
+		assertEquals(Arrays.asList(TEXT, TEXT), publishedEvents);
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_TEXT_AGAIN, CUSTOMER_ENTERS_NUMBER);
+	}
+
+	@Test
+	public void reactToBatchAddsPublishedEventsToCollection() {
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.on(EntersText.class).systemPublish(super.publishEnteredTextAsString())
+			.build();
+
+		modelRunner.run(model);
+		List<Object> publishedEvents = new ArrayList<>();
+		int nrOfPublishedEvents = modelRunner.reactToBatch(Arrays.asList(entersText(), entersNumber(), entersText()), publishedEvents);
+
+		assertEquals(2, nrOfPublishedEvents);
+		assertEquals(Arrays.asList(TEXT, TEXT), publishedEvents);
+		assertEquals(TEXT, modelRunner.reactTo(entersText()).get());
+		assertEquals(2, publishedEvents.size());
+	}
+	
 	 @Test
 	  public void secondStepReactsWhenFirstStepPublishesViaSupplier() {	      
 	    final String step2 = "step2";
@@ -328,6 +382,20 @@ public class FlowTest extends AbstractTestCase{
 		assertArrayEquals(eventArray, modelRunner.getRecordedMessages());		
 	}
 	
+	@Test
+	public void systemReactionCanModifyCollectionOfMessages() {
+		List<Object> messages = new ArrayList<>(Arrays.asList(entersText(), entersText()));
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.on(EntersText.class).system(et -> messages.add(entersText()))
+			.build();
+
+		modelRunner.run(model);
+		modelRunner.reactTo(messages);
+		assertEquals(4, messages.size());
+		assertEquals(2, modelRunner.getRecordedMessages().length);
+	}
+
 	@Test
 	public void twoSequentialStepsReactToEventsOfSameType() {		
 		Model model = modelBuilder
@@ -730,6 +798,32 @@ public class FlowTest extends AbstractTestCase{
 		reactAndAssertMessagesAreHandled(entersNumber());		
 	}
 	
+	@Test
+	public void evaluatesConditionOfInterruptingFlowOncePerMessage() {		
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.basicFlow()
+					.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.flow(ALTERNATIVE_FLOW).anytime().condition(this::countsEvaluationAndIsTrue)
+					.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.useCase(USE_CASE_2)
+				.basicFlow()
+					.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+			.build();
+		
+		modelRunner.run(model);
+		timesConditionEvaluated = 0;
+		modelRunner.reactTo(entersText());
+		
+		assertRecordedStepNames(CUSTOMER_ENTERS_ALTERNATIVE_TEXT);
+		assertEquals(1, timesConditionEvaluated);
+	}
+	
+	private boolean countsEvaluationAndIsTrue() {
+		timesConditionEvaluated++;
+		return true;
+	}
+	
 	@Test
 	public void startsTwoUseCasesSequentially() {	
 		Model model = modelBuilder
@@ -1112,4 +1112,103 @@ public class FlowlessTest extends AbstractTestCase {
 			latestStepRun = modelRunner.getLatestStep();
 			assertEquals(EntersText.class, latestStepRun.get().getMessageClass());
     }
+
+    @Test
+    public void evaluatesSharedConditionOfStepsOnlyOnceIfMemoized() {
+			int[] nrOfEvaluations = new int[1];
+			Condition expensiveCondition = () -> {
+				nrOfEvaluations[0]++;
+				return false;
+			};
+			Model model = modelBuilder.useCase(USE_CASE)
+				.condition(expensiveCondition).on(EntersText.class).system(displaysEnteredText())
+				.condition(expensiveCondition).on(EntersText.class).system(displaysEnteredText())
+				.condition(expensiveCondition).on(EntersText.class).system(displaysEnteredText())
+			.build();
+
+			modelRunner.run(model).reactTo(entersText());
+			assertEquals(3, nrOfEvaluations[0]);
+
+			nrOfEvaluations[0] = 0;
+			modelRunner.memoizeConditions().reactTo(entersText());
+			assertEquals(1, nrOfEvaluations[0]);
+
+			nrOfEvaluations[0] = 0;
+			modelRunner.reactTo(entersText());
+			assertEquals(1, nrOfEvaluations[0]);
+    }
+
+    @Test
+    public void memoizedConditionsDontChangeWhichStepReacts() {
+			Model model = modelBuilder.useCase(USE_CASE)
+				.condition(this::textIsNotAvailable).on(EntersText.class).system(displaysEnteredText())
+				.condition(this::textIsAvailable).on(EntersText.class).system(displaysConstantText())
+			.build();
+
+			modelRunner.memoizeConditions().run(model).reactTo(entersText(), entersText());
+
+			assertRecordedStepNames("S1", "S2");
+			assertEquals(TEXT, displayedText);
+    }
+
+    @Test
+    public void evaluatesStateDependentConditionAgainOnlyAfterTouchingStepHasRun() {
+			int[] nrOfEvaluations = new int[1];
+			boolean[] isLocked = new boolean[1];
+			Condition isUnlocked = () -> {
+				nrOfEvaluations[0]++;
+				return !isLocked[0];
+			};
+			Model model = modelBuilder.useCase(USE_CASE)
+				.condition(isUnlocked).dependsOn("lock").on(EntersText.class).system(displaysEnteredText())
+				.on(EntersNumber.class).system(() -> isLocked[0] = true).touches("lock")
+			.build();
+
+			modelRunner.run(model).reactTo(entersText(), entersText());
+			assertEquals(1, nrOfEvaluations[0]);
+
+			modelRunner.reactTo(entersNumber(), entersText(), entersText());
+			assertEquals(2, nrOfEvaluations[0]);
+			assertRecordedStepNames("S1", "S1", "S2");
+    }
+
+    @Test
+    public void evaluatesStateDependentConditionAgainAfterStateKeyHasBeenTouched() {
+			boolean[] isLocked = new boolean[1];
+			Model model = modelBuilder.useCase(USE_CASE)
+				.condition(() -> !isLocked[0]).dependsOn("lock").on(EntersText.class).system(displaysEnteredText())
+			.build();
+
+			modelRunner.run(model).reactTo(entersText());
+			isLocked[0] = true;
+			modelRunner.touch("otherKey").reactTo(entersText());
+			modelRunner.touch("lock").reactTo(entersText());
+
+			assertRecordedStepNames("S1", "S1");
+    }
+
+    @Test
+    public void evaluatesPureConditionOnlyOnceUntilRestart() {
+			int[] nrOfEvaluations = new int[1];
+			Condition pureCondition = Condition.pure(() -> {
+				nrOfEvaluations[0]++;
+				return true;
+			});
+			Model model = modelBuilder.useCase(USE_CASE)
+				.condition(pureCondition).on(EntersText.class).system(displaysEnteredText())
+				.condition(pureCondition).on(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+
+			modelRunner.run(model).reactTo(entersText(), entersNumber(), entersText());
+			assertEquals(1, nrOfEvaluations[0]);
+
+			modelRunner.restart();
+			modelRunner.reactTo(entersText());
+			assertEquals(2, nrOfEvaluations[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsExceptionIfThereIsNoConditionThatCouldDependOnState() {
+			modelBuilder.useCase(USE_CASE).condition(null).dependsOn("lock");
+    }
 }
@@ -0,0 +1,244 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalTest extends AbstractTestCase {
+  private ByteArrayOutputStream journalBytes;
+  private JournalWriter journalWriter;
+  private MessageCodec<EntersText> entersTextCodec;
+  private MessageCodec<EntersNumber> entersNumberCodec;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    entersTextCodec = MessageCodec.of(EntersText.class,
+      (et, buffer) -> buffer.put(et.value().getBytes(StandardCharsets.UTF_8)),
+      buffer -> new EntersText(StandardCharsets.UTF_8.decode(buffer).toString()));
+    entersNumberCodec = MessageCodec.of(EntersNumber.class,
+      (en, buffer) -> buffer.putInt(en.value()),
+      buffer -> new EntersNumber(buffer.getInt()));
+    journalBytes = new ByteArrayOutputStream();
+    journalWriter = new JournalWriter(Channels.newChannel(journalBytes), entersTextCodec, entersNumberCodec);
+  }
+
+  @Test
+  public void readsJournaledStepsAndMessages() throws IOException {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(SYSTEM_DISPLAYS_TEXT).system(displaysConstantText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+
+    modelRunner.run(model).startJournaling(journalWriter);
+    modelRunner.reactTo(entersText(), entersNumber());
+    journalWriter.close();
+    assertEquals(3, journalWriter.getNrOfEntries());
+
+    JournalReader journalReader = newJournalReader();
+    assertTrue(journalReader.next());
+    assertEquals(CUSTOMER_ENTERS_TEXT, journalReader.getStep(model).getName());
+    assertEquals(TEXT, ((EntersText) journalReader.getMessage()).value());
+
+    assertTrue(journalReader.next());
+    assertEquals(SYSTEM_DISPLAYS_TEXT, journalReader.getStep(model).getName());
+    assertFalse(journalReader.hasMessage());
+    assertNull(journalReader.getMessage());
+
+    assertTrue(journalReader.next());
+    assertEquals(CUSTOMER_ENTERS_NUMBER, journalReader.getStep(model).getName());
+    assertEquals(NUMBER, (int) ((EntersNumber) journalReader.getMessage()).value());
+
+    assertFalse(journalReader.next());
+    assertEquals(3, journalReader.getNrOfEntriesRead());
+  }
+
+  @Test
+  public void doesntJournalAfterStop() throws IOException {
+    Model model = modelBuilder
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+
+    modelRunner.run(model).startJournaling(journalWriter);
+    modelRunner.reactTo(entersText());
+    modelRunner.stopJournaling();
+    modelRunner.reactTo(entersText());
+    journalWriter.close();
+
+    assertEquals(1, journalWriter.getNrOfEntries());
+  }
+
+  @Test
+  public void encodesLongMessages() throws IOException {
+    char[] chars = new char[100_000];
+    Arrays.fill(chars, 'x');
+    String longText = new String(chars);
+
+    journalWriter.append(300, new EntersText(longText));
+    journalWriter.close();
+
+    JournalReader journalReader = newJournalReader();
+    assertTrue(journalReader.next());
+    assertEquals(300, journalReader.getStepId());
+    assertEquals(longText, ((EntersText) journalReader.getMessage()).value());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void throwsExceptionIfNoCodecForMessage() {
+    journalWriter.append(0, "No codec for strings");
+  }
+
+  @Test
+  public void throwsExceptionIfJournalIsTruncated() throws IOException {
+    journalWriter.append(0, entersText());
+    journalWriter.close();
+    byte[] bytes = journalBytes.toByteArray();
+
+    JournalReader journalReader = new JournalReader(ByteBuffer.wrap(bytes, 0, bytes.length - 1), entersTextCodec);
+    try {
+      journalReader.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void replaysJournalWithoutMessagesPublishedByRunner() throws IOException {
+    List<String> publishedTexts = new ArrayList<>();
+    Model model = modelBuilder
+      .on(EntersText.class).systemPublish(et -> et.value())
+      .on(String.class).system(publishedTexts::add)
+      .build();
+
+    modelRunner.run(model).startJournaling(journalWriter);
+    modelRunner.reactTo(entersText(), entersAlternativeText());
+    journalWriter.close();
+    assertEquals(4, journalWriter.getNrOfEntries());
+    publishedTexts.clear();
+
+    ModelRunner replayingModelRunner = new ModelRunner().run(model);
+    long nrOfEntries = new JournalReplayer(replayingModelRunner, 1).replay(newJournalReader());
+
+    assertEquals(4, nrOfEntries);
+    assertEquals(Arrays.asList(TEXT, entersAlternativeText().value()), publishedTexts);
+  }
+
+  @Test
+  public void fastForwardsWithoutRunningSystemReactions() throws IOException {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+
+    modelRunner.run(model).startJournaling(journalWriter);
+    modelRunner.reactTo(entersText());
+    journalWriter.close();
+    displayedText = null;
+
+    ModelRunner replayingModelRunner = new ModelRunner().run(model);
+    assertEquals(1, new JournalReplayer(replayingModelRunner).fastForward(newJournalReader()));
+    assertEquals(CUSTOMER_ENTERS_TEXT, replayingModelRunner.getLatestStep().get().getName());
+    assertNull(displayedText);
+
+    replayingModelRunner.reactTo(entersNumber());
+    assertEquals(CUSTOMER_ENTERS_NUMBER, replayingModelRunner.getLatestStep().get().getName());
+  }
+
+  @Test
+  public void fastForwardsFirstEntriesAndReplaysTheRest() throws IOException {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+
+    modelRunner.run(model).startJournaling(journalWriter);
+    modelRunner.reactTo(entersText(), entersNumber());
+    journalWriter.close();
+    displayedText = null;
+
+    ModelRunner replayingModelRunner = new ModelRunner().run(model);
+    JournalReplayer journalReplayer = new JournalReplayer(replayingModelRunner);
+    JournalReader journalReader = newJournalReader();
+    assertEquals(1, journalReplayer.fastForward(journalReader, 1));
+    assertNull(displayedText);
+    assertEquals(1, journalReplayer.replay(journalReader));
+
+    assertEquals(CUSTOMER_ENTERS_NUMBER, replayingModelRunner.getLatestStep().get().getName());
+    assertEquals(Integer.toString(NUMBER), displayedText);
+  }
+
+  @Test
+  public void replaysMemoryMappedJournalFile() throws IOException {
+    Model model = modelBuilder
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    Path journalFile = Files.createTempFile("journal", ".bin");
+    try {
+      JournalWriter fileJournalWriter = JournalWriter.create(journalFile, entersTextCodec);
+      modelRunner.run(model).startJournaling(fileJournalWriter);
+      modelRunner.reactTo(entersText());
+      fileJournalWriter.close();
+      displayedText = null;
+
+      JournalReader journalReader = JournalReader.open(journalFile, entersTextCodec);
+      new JournalReplayer(new ModelRunner().run(model)).replay(journalReader);
+      assertEquals(TEXT, displayedText);
+    } finally {
+      Files.delete(journalFile);
+    }
+  }
+
+  @Test
+  public void writesAndReadsModelRunnerState() {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+      .build();
+    modelRunner.run(model).reactTo(entersText());
+
+    ByteBuffer buffer = ByteBuffer.allocate(11);
+    modelRunner.snapshot().writeTo(buffer);
+    buffer.flip();
+    ModelRunnerState state = ModelRunnerState.readFrom(buffer);
+
+    ModelRunner otherModelRunner = new ModelRunner().run(model).restore(state);
+    assertEquals(CUSTOMER_ENTERS_TEXT, otherModelRunner.getLatestStep().get().getName());
+  }
+
+  @Test
+  public void encodesVarints() {
+    ByteBuffer buffer = ByteBuffer.allocate(Varint.MAX_LENGTH);
+    for (int value : new int[] { 0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE }) {
+      buffer.clear();
+      Varint.put(buffer, value);
+      buffer.flip();
+      assertEquals(value, Varint.get(buffer));
+      assertFalse(buffer.hasRemaining());
+    }
+  }
+
+  private JournalReader newJournalReader() {
+    return new JournalReader(ByteBuffer.wrap(journalBytes.toByteArray()), entersTextCodec, entersNumberCodec);
+  }
+}
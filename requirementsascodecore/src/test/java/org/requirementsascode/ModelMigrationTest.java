@@ -0,0 +1,103 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.builder.ModelBuilder;
+
+public class ModelMigrationTest extends AbstractTestCase {
+  private static final String NEW_USE_CASE = "New use case";
+  private static final String NEW_BEHAVIOR = "New behavior";
+
+  private Model model;
+  private Model newModel;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+    // The new use case comes first, so the ids of the steps change
+    ModelBuilder newModelBuilder = Model.builder();
+    newModelBuilder.useCase(NEW_USE_CASE).on(Long.class).system(l -> {});
+    newModel = newModelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(() -> displayedText = NEW_BEHAVIOR)
+      .build();
+  }
+
+  @Test
+  public void migratesRunnerToNewModel() {
+    modelRunner.run(model).reactTo(entersText());
+
+    modelRunner.migrateTo(newModel);
+    assertSame(newModel, modelRunner.getModel().get());
+    assertSame(newModel.findUseCase(USE_CASE).findStep(CUSTOMER_ENTERS_TEXT), modelRunner.getLatestStep().get());
+    assertTrue(modelRunner.isRunning());
+
+    modelRunner.reactTo(entersNumber());
+    assertEquals(NEW_BEHAVIOR, displayedText);
+    assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER);
+  }
+
+  @Test
+  public void migratesSessionsOfSharedModelRunner() {
+    SharedModelRunner sharedModelRunner = new SharedModelRunner(model);
+    ModelRunnerState startedState = sharedModelRunner.start();
+    ModelRunnerState stateAfterText = sharedModelRunner.start();
+    sharedModelRunner.reactTo(stateAfterText, entersText());
+
+    ModelMigration migration = ModelMigration.between(model, newModel);
+    assertTrue(migration.isComplete());
+    migration.migrate(startedState);
+    migration.migrate(stateAfterText);
+
+    SharedModelRunner newSharedModelRunner = new SharedModelRunner(newModel);
+    assertFalse(newSharedModelRunner.getLatestStep(startedState).isPresent());
+    assertTrue(newSharedModelRunner.canReactTo(startedState, EntersText.class));
+    newSharedModelRunner.reactTo(stateAfterText, entersNumber());
+    assertEquals(NEW_BEHAVIOR, displayedText);
+  }
+
+  @Test
+  public void keepsOldModelIfLatestStepHasBeenRemoved() {
+    Model modelWithoutNumberStep = Model.builder().useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+      .build();
+    modelRunner.run(model).reactTo(entersText(), entersNumber());
+
+    ModelMigration migration = ModelMigration.between(model, modelWithoutNumberStep);
+    assertFalse(migration.isComplete());
+    assertFalse(migration.canMigrate(modelRunner.snapshot()));
+    try {
+      modelRunner.migrateWith(migration);
+    } catch (IllegalArgumentException e) {
+      assertSame(model, modelRunner.getModel().get());
+      assertEquals(CUSTOMER_ENTERS_NUMBER, modelRunner.getLatestStep().get().getName());
+      return;
+    }
+    throw new AssertionError("Migration of removed step must fail");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cantMigrateRunnerOfOtherModel() {
+    modelRunner.run(newModel).migrateWith(ModelMigration.between(model, newModel));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void cantMigrateWithOutdatedMigration() {
+    modelRunner.run(model);
+    ModelMigration migration = ModelMigration.between(model, newModel);
+    new ModelBuilder(newModel).useCase("Added use case").on(Double.class).system(d -> {}).build();
+    modelRunner.migrateWith(migration);
+  }
+}
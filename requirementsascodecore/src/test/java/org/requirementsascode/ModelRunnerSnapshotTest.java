@@ -0,0 +1,116 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelRunnerSnapshotTest extends AbstractTestCase {
+  private Model model;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .build();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void cantTakeSnapshotIfNoModelHasBeenRun() {
+    modelRunner.snapshot();
+  }
+
+  @Test
+  public void restoresLatestStep() {
+    modelRunner.run(model);
+    ModelRunnerState initialState = modelRunner.snapshot();
+    modelRunner.reactTo(entersText());
+    ModelRunnerState stateAfterText = modelRunner.snapshot();
+
+    modelRunner.restore(initialState);
+    assertFalse(modelRunner.getLatestStep().isPresent());
+    assertTrue(modelRunner.canReactTo(EntersText.class));
+
+    modelRunner.restore(stateAfterText);
+    assertEquals(CUSTOMER_ENTERS_TEXT, modelRunner.getLatestStep().get().getName());
+    assertTrue(modelRunner.canReactTo(EntersNumber.class));
+  }
+
+  @Test
+  public void restoresSnapshotInOtherModelRunner() {
+    modelRunner.run(model).reactTo(entersText());
+    ModelRunnerState snapshot = modelRunner.snapshot();
+
+    ModelRunner otherModelRunner = new ModelRunner().run(model).restore(snapshot);
+    otherModelRunner.reactTo(entersNumber());
+    assertEquals(CUSTOMER_ENTERS_NUMBER, otherModelRunner.getLatestStep().get().getName());
+  }
+
+  @Test
+  public void restoresRunningFlag() {
+    modelRunner.run(model);
+    modelRunner.stop();
+    ModelRunnerState stoppedState = modelRunner.snapshot();
+
+    ModelRunner otherModelRunner = new ModelRunner().run(model).restore(stoppedState);
+    assertFalse(otherModelRunner.isRunning());
+  }
+
+  @Test
+  public void restoresRunActor() {
+    Model model = Model.builder().useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).as(customer).user(EntersText.class).system(displaysEnteredText())
+      .build();
+    modelRunner.as(customer).run(model);
+    ModelRunnerState snapshot = modelRunner.snapshot();
+
+    ModelRunner otherModelRunner = new ModelRunner().run(model).restore(snapshot);
+    assertTrue(otherModelRunner.canReactTo(EntersText.class));
+  }
+
+  @Test
+  public void restoresDeserializedSnapshot() throws IOException, ClassNotFoundException {
+    modelRunner.run(model).reactTo(entersText());
+    ModelRunnerState snapshot = deserialize(serialize(modelRunner.snapshot()));
+
+    ModelRunner otherModelRunner = new ModelRunner().run(model).restore(snapshot);
+    assertEquals(CUSTOMER_ENTERS_TEXT, otherModelRunner.getLatestStep().get().getName());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cantRestoreSnapshotOfBiggerModel() {
+    modelRunner.run(model).reactTo(entersText(), entersNumber());
+    ModelRunnerState snapshot = modelRunner.snapshot();
+
+    Model smallerModel = Model.builder()
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    new ModelRunner().run(smallerModel).restore(snapshot);
+  }
+
+  private byte[] serialize(ModelRunnerState snapshot) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(snapshot);
+    }
+    return bytes.toByteArray();
+  }
+
+  private ModelRunnerState deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (ModelRunnerState) in.readObject();
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package org.requirementsascode;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -140,4 +142,85 @@ public class RecordingTest extends AbstractTestCase {
 		assertEquals("S1", modelRunner.getRecordedStepNames()[0]);
 		assertEquals("S2", modelRunner.getRecordedStepNames()[1]);
 	}
+
+	@Test
+	public void boundedRecordingKeepsLatestStepsAndMessages() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.run(model).startRecording(3);
+		EntersNumber entersNumber = entersNumber();
+		EntersText entersText = entersText();
+		modelRunner.reactTo(entersText(), entersText(), entersNumber, entersText, entersNumber);
+
+		assertArrayEquals(new String[] { "S2", "S1", "S2" }, modelRunner.getRecordedStepNames());
+		assertArrayEquals(new Object[] { entersNumber, entersText, entersNumber }, modelRunner.getRecordedMessages());
+	}
+
+	@Test
+	public void boundedRecordingOfFewerStepsThanMaximum() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model).startRecording(3);
+		modelRunner.reactTo(entersText());
+
+		assertArrayEquals(new String[] { "S1" }, modelRunner.getRecordedStepNames());
+		assertEquals(1, modelRunner.getRecordedMessages().length);
+	}
+
+	@Test
+	public void unboundedRecordingKeepsAllSteps() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model).startRecording();
+		for (int i = 0; i < 100; i++) {
+			modelRunner.reactTo(entersText());
+		}
+
+		assertEquals(100, modelRunner.getRecordedStepNames().length);
+		assertEquals(100, modelRunner.getRecordedMessages().length);
+		assertEquals(0, modelRunner.getRecordingSnapshot().getNrOfDroppedSteps());
+	}
+
+	@Test
+	public void snapshotContainsStepsAndMessages() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(SYSTEM_DISPLAYS_TEXT).system(displaysConstantText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.run(model).startRecording(2);
+		EntersText entersText = entersText();
+		modelRunner.reactTo(entersText);
+		RecordingSnapshot snapshot = modelRunner.getRecordingSnapshot();
+		modelRunner.reactTo(entersNumber());
+
+		assertEquals(2, snapshot.size());
+		assertEquals(CUSTOMER_ENTERS_TEXT, snapshot.getStep(0).getName());
+		assertEquals(entersText, snapshot.getMessage(0).get());
+		assertEquals(SYSTEM_DISPLAYS_TEXT, snapshot.getStep(1).getName());
+		assertFalse(snapshot.getMessage(1).isPresent());
+		assertEquals(0, snapshot.getNrOfDroppedSteps());
+
+		RecordingSnapshot laterSnapshot = modelRunner.getRecordingSnapshot();
+		assertEquals(1, laterSnapshot.getNrOfDroppedSteps());
+		StringBuilder stepNames = new StringBuilder();
+		for (Step step : laterSnapshot) {
+			stepNames.append(step.getName()).append(';');
+		}
+		assertEquals(SYSTEM_DISPLAYS_TEXT + ";" + CUSTOMER_ENTERS_NUMBER + ";", stepNames.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void throwsExceptionIfMaximumNumberOfRecordedStepsIsntPositive() {
+		modelRunner.startRecording(0);
+	}
 }
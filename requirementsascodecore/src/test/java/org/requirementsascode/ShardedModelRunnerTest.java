@@ -0,0 +1,164 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedModelRunnerTest extends AbstractTestCase {
+  private static final String THROWS_EXCEPTION = "Throws exception";
+
+  private Model model;
+  private ShardedModelRunner<String> shardedModelRunner;
+  private List<String> createdRunnerKeys;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).systemPublish(publishEnteredTextAsString())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).systemPublish(publishAnyMessageAsString())
+      .flow(THROWS_EXCEPTION).after(CUSTOMER_ENTERS_NUMBER)
+        .step(THROWS_EXCEPTION).user(EntersText.class).system(et -> { throw new IllegalStateException(); })
+      .build();
+    createdRunnerKeys = Collections.synchronizedList(new ArrayList<>());
+    shardedModelRunner = new ShardedModelRunner<>(2, key -> {
+      createdRunnerKeys.add(key);
+      return new ModelRunner().run(model);
+    });
+  }
+
+  @After
+  public void tearDown() {
+    shardedModelRunner.stop();
+  }
+
+  @Test
+  public void throwsExceptionForNonPositiveNumberOfShards() {
+    try {
+      new ShardedModelRunner<String>(0, key -> new ModelRunner());
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void mapsKeysToShards() {
+    assertEquals(2, shardedModelRunner.getNrOfShards());
+    for (int i = 0; i < 100; i++) {
+      String key = "Key " + i;
+      int shardIndex = shardedModelRunner.getShardIndex(key);
+      assertTrue(shardIndex >= 0 && shardIndex < 2);
+      assertEquals(shardIndex, shardedModelRunner.getShardIndex(key));
+    }
+  }
+
+  @Test
+  public void modelRunnersOfKeysProgressIndependently() throws Exception {
+    Optional<String> event1 = shardedModelRunner.<EntersText, String>reactTo("Key 1", entersText()).get();
+    Optional<String> event2 = shardedModelRunner.<EntersNumber, String>reactTo("Key 2", entersNumber()).get();
+    Optional<String> event3 = shardedModelRunner.<EntersNumber, String>reactTo("Key 1", entersNumber()).get();
+
+    assertEquals(TEXT, event1.get());
+    assertFalse(event2.isPresent());
+    assertTrue(event3.isPresent());
+    assertEquals(2, createdRunnerKeys.size());
+  }
+
+  @Test
+  public void processesMessagesForSameKeyInOrder() throws Exception {
+    List<Optional<Object>> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String key = "Key " + i;
+      shardedModelRunner.reactTo(key, entersText());
+      events.add(shardedModelRunner.reactTo(key, entersNumber()).get());
+    }
+
+    for (Optional<Object> event : events) {
+      assertTrue(event.isPresent());
+    }
+  }
+
+  @Test
+  public void completesFutureExceptionallyIfModelRunnerThrowsException() throws Exception {
+    shardedModelRunner.reactTo("Key", entersText());
+    shardedModelRunner.reactTo("Key", entersNumber());
+    try {
+      shardedModelRunner.reactTo("Key", entersText()).get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    Optional<Object> event = shardedModelRunner.reactTo("Other key", entersText()).get();
+    assertTrue(event.isPresent());
+  }
+
+  @Test
+  public void completesFutureExceptionallyAndKeepsProcessingIfModelRunnerThrowsError() throws Exception {
+    Model modelThrowingError = Model.builder()
+      .on(Long.class).system(l -> { throw new AssertionError(); })
+      .on(EntersText.class).systemPublish(publishEnteredTextAsString())
+      .build();
+    ShardedModelRunner<String> singleShardModelRunner = new ShardedModelRunner<>(1,
+      key -> new ModelRunner().run(modelThrowingError));
+    try {
+      try {
+        singleShardModelRunner.reactTo("Key", 1L).get(1, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof AssertionError);
+      }
+
+      Optional<Object> event = singleShardModelRunner.reactTo("Key", entersText()).get(1, TimeUnit.SECONDS);
+      assertEquals(TEXT, event.get());
+      Optional<Object> otherEvent = singleShardModelRunner.reactTo("Other key", entersText()).get(1, TimeUnit.SECONDS);
+      assertEquals(TEXT, otherEvent.get());
+    } finally {
+      singleShardModelRunner.stop();
+    }
+  }
+
+  @Test
+  public void createsNewModelRunnerAfterRemoval() throws Exception {
+    shardedModelRunner.reactTo("Key", entersText()).get();
+    shardedModelRunner.remove("Key");
+
+    Optional<Object> event = shardedModelRunner.reactTo("Key", entersNumber()).get();
+    assertFalse(event.isPresent());
+    assertEquals(2, createdRunnerKeys.size());
+  }
+
+  @Test
+  public void processesSentMessagesBeforeStopping() {
+    List<CompletableFuture<Optional<Object>>> futureEvents = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      futureEvents.add(shardedModelRunner.reactTo("Key " + i, entersText()));
+    }
+    shardedModelRunner.stop();
+
+    for (CompletableFuture<Optional<Object>> futureEvent : futureEvents) {
+      assertTrue(futureEvent.isDone());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void doesntAcceptMessagesAfterStop() {
+    shardedModelRunner.stop();
+    shardedModelRunner.reactTo("Key", entersText());
+  }
+}
@@ -0,0 +1,120 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedModelRunnerTest extends AbstractTestCase {
+  private Model model;
+  private SharedModelRunner sharedModelRunner;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).systemPublish(publishEnteredTextAsString())
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).systemPublish(publishAnyMessageAsString())
+      .build();
+    sharedModelRunner = new SharedModelRunner(model);
+  }
+
+  @Test
+  public void startedSessionIsRunning() {
+    ModelRunnerState session = sharedModelRunner.start();
+    assertTrue(session.isRunning());
+    assertFalse(sharedModelRunner.getLatestStep(session).isPresent());
+  }
+
+  @Test
+  public void stoppedSessionDoesntReact() {
+    ModelRunnerState session = sharedModelRunner.start();
+    sharedModelRunner.stop(session);
+
+    Optional<String> event = sharedModelRunner.reactTo(session, entersText());
+    assertFalse(event.isPresent());
+    assertFalse(sharedModelRunner.getLatestStep(session).isPresent());
+  }
+
+  @Test
+  public void sessionsProgressIndependently() {
+    ModelRunnerState session1 = sharedModelRunner.start();
+    ModelRunnerState session2 = sharedModelRunner.start();
+
+    Optional<String> event = sharedModelRunner.reactTo(session1, entersText());
+    assertEquals(TEXT, event.get());
+    assertEquals(CUSTOMER_ENTERS_TEXT, sharedModelRunner.getLatestStep(session1).get().getName());
+    assertFalse(sharedModelRunner.getLatestStep(session2).isPresent());
+
+    assertFalse(sharedModelRunner.canReactTo(session2, EntersNumber.class));
+    assertTrue(sharedModelRunner.canReactTo(session1, EntersNumber.class));
+
+    sharedModelRunner.reactTo(session1, entersNumber());
+    assertEquals(CUSTOMER_ENTERS_NUMBER, sharedModelRunner.getLatestStep(session1).get().getName());
+  }
+
+  @Test
+  public void restartedSessionStartsFromTheBeginning() {
+    ModelRunnerState session = sharedModelRunner.start();
+    sharedModelRunner.reactTo(session, entersText());
+
+    sharedModelRunner.restart(session);
+    assertFalse(sharedModelRunner.getLatestStep(session).isPresent());
+  }
+
+  @Test
+  public void sessionRunAsActorOnlyReactsToStepsOfActor() {
+    Model model = Model.builder().useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).as(customer).user(EntersText.class).system(displaysEnteredText())
+      .build();
+    SharedModelRunner sharedModelRunner = new SharedModelRunner(model);
+
+    ModelRunnerState userSession = sharedModelRunner.start();
+    ModelRunnerState customerSession = sharedModelRunner.startAs(customer);
+
+    assertFalse(sharedModelRunner.canReactTo(userSession, EntersText.class));
+    assertTrue(sharedModelRunner.canReactTo(customerSession, EntersText.class));
+  }
+
+  @Test
+  public void sessionsRunConcurrently() throws Exception {
+    final int nrOfSessions = 1000;
+    List<ModelRunnerState> sessions = new ArrayList<>();
+    for (int i = 0; i < nrOfSessions; i++) {
+      sessions.add(sharedModelRunner.start());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Optional<String>>> events = new ArrayList<>();
+      for (ModelRunnerState session : sessions) {
+        Callable<Optional<String>> reaction = () -> {
+          sharedModelRunner.reactTo(session, entersText());
+          return sharedModelRunner.reactTo(session, entersNumber());
+        };
+        events.add(executor.submit(reaction));
+      }
+      for (Future<Optional<String>> event : events) {
+        assertEquals(String.valueOf(NUMBER), event.get().get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    for (ModelRunnerState session : sessions) {
+      assertEquals(CUSTOMER_ENTERS_NUMBER, sharedModelRunner.getLatestStep(session).get().getName());
+    }
+  }
+}
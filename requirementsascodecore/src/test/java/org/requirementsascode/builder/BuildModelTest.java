@@ -741,4 +741,39 @@ public class BuildModelTest extends AbstractTestCase {
 		assertTrue(actor1 == actor2);
 		assertEquals(customer, actor1);
   }
+
+  @Test
+  public void findsActorsOfStepsOnlyOnce() {
+		Model model = 
+			modelBuilder.useCase(USE_CASE).basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).as(customer).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_TEXT_AGAIN).as(customer, targetActor).user(EntersText.class).system(displaysEnteredText())
+			.build();
+	
+		Collection<AbstractActor> actors = model.getActors();
+		assertEquals(2, actors.size());
+		assertTrue(model.hasActor(CUSTOMER));
+		assertTrue(model.hasActor(PARTNER2));
+		assertFalse(model.hasActor(PARTNER));
+		assertTrue(customer == model.findActor(CUSTOMER));
+  }
+
+  @Test
+  public void flowStepsAreInOrderOfCreation() {
+		Model model = 
+			modelBuilder.useCase(USE_CASE)
+				.basicFlow()
+					.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+					.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+				.flow(ALTERNATIVE_FLOW).insteadOf(CUSTOMER_ENTERS_TEXT_AGAIN)
+					.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.build();
+	
+		Flow basicFlow = model.findUseCase(USE_CASE).getBasicFlow();
+		List<FlowStep> basicFlowSteps = basicFlow.getSteps();
+		assertEquals(2, basicFlowSteps.size());
+		assertEquals(CUSTOMER_ENTERS_TEXT, basicFlowSteps.get(0).getName());
+		assertEquals(CUSTOMER_ENTERS_TEXT_AGAIN, basicFlowSteps.get(1).getName());
+		assertEquals(basicFlowSteps.get(0), basicFlow.getFirstStep().get());
+  }
 }
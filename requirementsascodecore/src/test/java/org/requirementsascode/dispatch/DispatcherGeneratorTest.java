@@ -0,0 +1,154 @@
+package org.requirementsascode.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.AbstractTestCase;
+import org.requirementsascode.Model;
+import org.requirementsascode.Step;
+
+public class DispatcherGeneratorTest extends AbstractTestCase {
+  private static final String DISPATCHER_CLASS_NAME = "org.requirementsascode.generated.TestDispatcher";
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+  }
+
+  @Test
+  public void generatesCandidateStepsOfAccessibleMessageClasses() {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .on(EntersText.class).system(displaysEnteredText())
+      .on(EntersNumber.class).system(displaysEnteredNumber())
+      .on(Object.class).system(o -> {})
+      .condition(() -> false).system(displaysConstantText())
+      .build();
+
+    String source = new DispatcherGenerator().generate(model, DISPATCHER_CLASS_NAME);
+
+    assertTrue(source.startsWith("package org.requirementsascode.generated;"));
+    assertTrue(source.contains("public final class TestDispatcher extends GeneratedDispatcher"));
+    assertTrue(source.contains("\"" + USE_CASE + "/S1:" + EntersText.class.getName() + "\""));
+    assertTrue(source.contains("if (messageClass == org.requirementsascode.AbstractTestCase.EntersText.class)"));
+    assertTrue(source.contains("this.candidateSteps0 = steps(0, 2);"));
+    assertTrue(source.contains("if (messageClass == java.lang.Object.class)"));
+    assertTrue(source.contains("this.candidateSteps1 = steps(2);"));
+    assertTrue(source.contains("if (messageClass == org.requirementsascode.ModelRunner.class)"));
+    assertTrue(source.contains("this.candidateSteps2 = steps(3);"));
+    // Protected class of another package
+    assertFalse(source.contains("EntersNumber.class"));
+  }
+
+  @Test
+  public void runnerUsesCompiledDispatcher() throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      // Only a JDK can compile the generated source
+      return;
+    }
+    Model model = modelBuilder.useCase(USE_CASE)
+      .on(EntersText.class).system(displaysEnteredText())
+      .condition(() -> false).on(EntersText.class).system(throwsRuntimeException())
+      .build();
+
+    Path sourceFolder = Files.createTempDirectory("dispatcher");
+    Path sourceFile = new DispatcherGenerator().writeTo(model, DISPATCHER_CLASS_NAME, sourceFolder);
+    int result = compiler.run(null, null, null, "-cp", System.getProperty("java.class.path"), "-d",
+      sourceFolder.toString(), sourceFile.toString());
+    assertEquals(0, result);
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { sourceFolder.toUri().toURL() },
+      getClass().getClassLoader())) {
+      Dispatcher dispatcher = (Dispatcher) classLoader.loadClass(DISPATCHER_CLASS_NAME).getConstructor(Model.class)
+        .newInstance(model);
+      CountingDispatcher countingDispatcher = new CountingDispatcher(dispatcher);
+
+      modelRunner.dispatchWith(countingDispatcher).run(model).reactTo(entersText(), entersNumber());
+
+      assertEquals(TEXT, displayedText);
+      assertRecordedStepNames("S1");
+      assertEquals(1, countingDispatcher.nrOfFoundLookups);
+    } finally {
+      deleteRecursively(sourceFolder.toFile());
+    }
+  }
+
+  @Test
+  public void runnerFallsBackToDispatchIndexIfDispatcherIsNotCurrent() {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    TestDispatcher dispatcher = new TestDispatcher(model, USE_CASE + "/S1:" + EntersText.class.getName());
+    assertTrue(dispatcher.isCurrentFor(model));
+
+    model.getSteps().iterator().next().setMessageClass(EntersText.class);
+    assertFalse(dispatcher.isCurrentFor(model));
+
+    modelRunner.dispatchWith(dispatcher).run(model).reactTo(entersText());
+    assertEquals(TEXT, displayedText);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void throwsExceptionIfModelStepsDontMatchGeneratedSteps() {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    new TestDispatcher(model, USE_CASE + "/S1:" + EntersNumber.class.getName());
+  }
+
+  private static class TestDispatcher extends GeneratedDispatcher {
+    TestDispatcher(Model model, String... stepSignatures) {
+      super(model, stepSignatures);
+    }
+
+    @Override
+    public Step[] getCandidateSteps(Class<?> messageClass) {
+      return messageClass == EntersText.class ? new Step[0] : null;
+    }
+  }
+
+  private static class CountingDispatcher implements Dispatcher {
+    private final Dispatcher dispatcher;
+    private int nrOfFoundLookups;
+
+    CountingDispatcher(Dispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public boolean isCurrentFor(Model model) {
+      return dispatcher.isCurrentFor(model);
+    }
+
+    @Override
+    public Step[] getCandidateSteps(Class<?> messageClass) {
+      Step[] candidateSteps = dispatcher.getCandidateSteps(messageClass);
+      if (candidateSteps != null) {
+        nrOfFoundLookups++;
+      }
+      return candidateSteps;
+    }
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+}
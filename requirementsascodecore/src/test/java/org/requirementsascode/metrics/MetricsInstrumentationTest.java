@@ -0,0 +1,125 @@
+package org.requirementsascode.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.AbstractTestCase;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+
+public class MetricsInstrumentationTest extends AbstractTestCase {
+  private MetricsInstrumentation metrics;
+
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+    metrics = new MetricsInstrumentation();
+  }
+
+  @Test
+  public void collectsMetricsOfDispatches() {
+    Model model = modelBuilder
+      .on(EntersText.class).systemPublish(publishEnteredTextAsString())
+      .on(String.class).system(s -> {})
+      .build();
+
+    modelRunner.run(model).instrumentWith(metrics);
+    modelRunner.reactTo(entersText(), entersText(), entersNumber());
+
+    assertEquals(2, metrics.getDispatchTime(EntersText.class).getCount());
+    assertEquals(2, metrics.getDispatchTime(String.class).getCount());
+    assertEquals(1, metrics.getDispatchTime(entersNumber().getClass()).getCount());
+    assertEquals(1, metrics.getNrOfCandidateSteps(EntersText.class).getMax());
+    assertEquals(2, metrics.getConditionTime(EntersText.class).getCount());
+    assertEquals(1, metrics.getNrOfUnhandledMessages());
+
+    Step entersTextStep = modelRunner.getRecordingSnapshot().getStep(0);
+    assertEquals(2, metrics.getHandlerTime(entersTextStep).getCount());
+    assertEquals(2, metrics.getNrOfPublishedMessages(entersTextStep));
+    assertEquals(2, metrics.getSteps().size());
+    assertTrue(metrics.getNrOfDispatches() >= 5);
+  }
+
+  @Test
+  public void countsExceptions() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(throwsRuntimeException())
+      .on(RuntimeException.class).system(e -> {})
+      .build();
+
+    modelRunner.run(model).instrumentWith(metrics);
+    modelRunner.reactTo(entersText());
+
+    assertEquals(1, metrics.getNrOfExceptions());
+    assertEquals(0, metrics.getNrOfUnhandledMessages());
+  }
+
+  @Test
+  public void callsInstrumentationInOrder() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    List<String> calls = new ArrayList<>();
+    Instrumentation instrumentation = new Instrumentation() {
+      @Override
+      public void dispatchStarted(Object message) {
+        calls.add("started " + message.getClass().getSimpleName());
+      }
+
+      @Override
+      public void conditionsEvaluated(Class<?> messageClass, int nrOfCandidateSteps, long conditionNanos) {
+        calls.add("conditions " + nrOfCandidateSteps);
+      }
+
+      @Override
+      public void stepHandled(Step step, Class<?> messageClass, long handlerNanos) {
+        calls.add("handled " + step.getName());
+      }
+
+      @Override
+      public void dispatchEnded(Object message, long dispatchNanos) {
+        calls.add("ended " + message.getClass().getSimpleName());
+      }
+    };
+
+    new ModelRunner().run(model).instrumentWith(instrumentation).reactTo(entersText());
+
+    assertEquals("started EntersText", calls.get(0));
+    assertEquals("conditions 1", calls.get(1));
+    assertEquals("handled S1", calls.get(2));
+    assertEquals("ended EntersText", calls.get(3));
+  }
+
+  @Test
+  public void histogramReturnsValuesAtPercentiles() {
+    Histogram histogram = new Histogram();
+    for (int value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500_500, histogram.getTotal());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(500.5, histogram.getMean(), 0.001);
+    assertEquals(1, histogram.getValueAtPercentile(0));
+    assertEquals(1000, histogram.getValueAtPercentile(100));
+    long median = histogram.getValueAtPercentile(50);
+    assertTrue(median >= 500 && median <= 500 + 500 / 16);
+  }
+
+  @Test
+  public void histogramBucketsCoverAllValues() {
+    long[] values = { 0, 1, 15, 16, 17, 31, 32, 1_000_000, Long.MAX_VALUE };
+    for (long value : values) {
+      long highestValue = Histogram.getHighestValueOfBucket(Histogram.getBucketIndex(value));
+      assertTrue(highestValue >= value);
+      assertTrue(highestValue - value <= value / 16);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package org.requirementsascode.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.AbstractTestCase;
+import org.requirementsascode.Model;
+
+public class StepProfilerTest extends AbstractTestCase {
+  @Before
+  public void setup() {
+    setupWithRecordingModelRunner();
+  }
+
+  @Test
+  public void reportsHottestStepsWithUseCaseAndFlow() {
+    Model model = modelBuilder.useCase(USE_CASE)
+      .basicFlow()
+        .step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(sleeps(2))
+        .step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+      .flow(ALTERNATIVE_FLOW).anytime()
+        .step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(String.class).system(s -> {})
+      .build();
+    StepProfiler stepProfiler = new StepProfiler(model);
+
+    modelRunner.instrumentWith(stepProfiler).run(model);
+    modelRunner.reactTo(entersText(), entersNumber());
+
+    List<StepProfile> hottestSteps = stepProfiler.getHottestSteps(10);
+    assertEquals(2, hottestSteps.size());
+    StepProfile hottestStep = hottestSteps.get(0);
+    assertEquals(CUSTOMER_ENTERS_TEXT, hottestStep.getStepName());
+    assertEquals(USE_CASE, hottestStep.getUseCase().getName());
+    assertEquals("Basic flow", hottestStep.getFlow().get().getName());
+    assertEquals(1, hottestStep.getNrOfInvocations());
+    assertTrue(hottestStep.getTotalNanos() >= 2_000_000);
+    assertEquals(CUSTOMER_ENTERS_NUMBER, hottestSteps.get(1).getStepName());
+
+    assertEquals(1, stepProfiler.getHottestSteps(1).size());
+  }
+
+  @Test
+  public void countsExceptionsOfSteps() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(throwsRuntimeException())
+      .on(RuntimeException.class).system(e -> {})
+      .build();
+    StepProfiler stepProfiler = new StepProfiler(model);
+
+    modelRunner.instrumentWith(stepProfiler).run(model);
+    modelRunner.reactTo(entersText(), entersText());
+
+    StepProfile throwingStep = stepProfiler.getProfile(modelRunner.getRecordingSnapshot().getStep(0)).get();
+    assertEquals(2, throwingStep.getNrOfInvocations());
+    assertEquals(2, throwingStep.getNrOfExceptions());
+    assertFalse(throwingStep.getFlow().isPresent());
+  }
+
+  @Test
+  public void countsAllInvocationsButMeasuresSampleOfThem() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    StepProfiler stepProfiler = new StepProfiler(model, 1000);
+
+    modelRunner.instrumentWith(stepProfiler).run(model);
+    for (int i = 0; i < 100; i++) {
+      modelRunner.reactTo(entersText());
+    }
+
+    StepProfile stepProfile = stepProfiler.getProfile(modelRunner.getRecordingSnapshot().getStep(0)).get();
+    assertEquals(100, stepProfile.getNrOfInvocations());
+    long nrOfMeasuredInvocations = stepProfile.getLatency().getCount();
+    assertTrue(nrOfMeasuredInvocations >= 1 && nrOfMeasuredInvocations < 100);
+    assertTrue(stepProfile.getTotalNanos() >= stepProfile.getLatency().getTotal());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void throwsExceptionForNonPositiveSamplingInterval() {
+    new StepProfiler(Model.builder().build(), 0);
+  }
+
+  @Test
+  public void ignoresStepsOfOtherModels() {
+    Model model = modelBuilder
+      .on(EntersText.class).system(displaysEnteredText())
+      .build();
+    StepProfiler stepProfiler = new StepProfiler(Model.builder().build());
+
+    modelRunner.instrumentWith(stepProfiler).run(model);
+    modelRunner.reactTo(entersText());
+
+    assertTrue(stepProfiler.getHottestSteps(10).isEmpty());
+    assertFalse(stepProfiler.getProfile(modelRunner.getRecordingSnapshot().getStep(0)).isPresent());
+  }
+
+  private Runnable sleeps(long millis) {
+    return () -> {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+}
@@ -0,0 +1,162 @@
+package org.requirementsascode.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BoundedEventQueueTest {
+  private static final int NR_OF_PRODUCERS = 4;
+  private static final int NR_OF_EVENTS_PER_PRODUCER = 10_000;
+
+  @Test
+  public void roundsCapacityUpToPowerOfTwo() {
+    BoundedEventQueue queue = new BoundedEventQueue(event -> {}, 1000, WaitStrategy.blocking());
+    assertEquals(1024, queue.getCapacity());
+    queue.stop();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void throwsExceptionForNonPositiveCapacity() {
+    new BoundedEventQueue(event -> {}, 0, WaitStrategy.blocking());
+  }
+
+  @Test
+  public void consumesEventsOfSingleProducerInOrder() {
+    List<Object> consumedEvents = Collections.synchronizedList(new ArrayList<>());
+    BoundedEventQueue queue = new BoundedEventQueue(consumedEvents::add);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(queue.offer(i));
+    }
+    queue.stop();
+
+    assertEquals(100, consumedEvents.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, consumedEvents.get(i));
+    }
+  }
+
+  @Test
+  public void consumesAllEventsOfConcurrentProducersWithBlockingStrategy() throws InterruptedException {
+    consumesAllEventsOfConcurrentProducers(WaitStrategy.blocking());
+  }
+
+  @Test
+  public void consumesAllEventsOfConcurrentProducersWithParkingStrategy() throws InterruptedException {
+    consumesAllEventsOfConcurrentProducers(WaitStrategy.parking(10, TimeUnit.MICROSECONDS));
+  }
+
+  @Test
+  public void consumesAllEventsOfConcurrentProducersWithSpinningStrategy() throws InterruptedException {
+    consumesAllEventsOfConcurrentProducers(WaitStrategy.spinning());
+  }
+
+  private void consumesAllEventsOfConcurrentProducers(WaitStrategy waitStrategy) throws InterruptedException {
+    long[] sumOfConsumedEvents = new long[1];
+    BoundedEventQueue queue = new BoundedEventQueue(event -> sumOfConsumedEvents[0] += (Integer) event, 64,
+      waitStrategy);
+
+    List<Thread> producers = new ArrayList<>();
+    for (int producer = 0; producer < NR_OF_PRODUCERS; producer++) {
+      Thread producerThread = new Thread(() -> {
+        try {
+          for (int i = 1; i <= NR_OF_EVENTS_PER_PRODUCER; i++) {
+            queue.put(i);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      producers.add(producerThread);
+      producerThread.start();
+    }
+    for (Thread producerThread : producers) {
+      producerThread.join();
+    }
+    queue.stop();
+
+    long sumOfEventsPerProducer = (long) NR_OF_EVENTS_PER_PRODUCER * (NR_OF_EVENTS_PER_PRODUCER + 1) / 2;
+    assertEquals(NR_OF_PRODUCERS * sumOfEventsPerProducer, sumOfConsumedEvents[0]);
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void signalsBackPressureWhenFull() throws InterruptedException {
+    CountDownLatch consumerMayContinue = new CountDownLatch(1);
+    CountDownLatch consumerIsBlocked = new CountDownLatch(1);
+    BoundedEventQueue queue = new BoundedEventQueue(event -> {
+      consumerIsBlocked.countDown();
+      awaitUninterruptibly(consumerMayContinue);
+    }, 2, WaitStrategy.blocking());
+
+    assertTrue(queue.offer("Blocks consumer"));
+    consumerIsBlocked.await();
+    assertTrue(queue.offer("First"));
+    assertTrue(queue.offer("Second"));
+    assertFalse(queue.offer("Third"));
+    assertEquals(0, queue.getRemainingCapacity());
+
+    consumerMayContinue.countDown();
+    queue.stop();
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void doesntAcceptEventsAfterStop() {
+    List<Object> consumedEvents = Collections.synchronizedList(new ArrayList<>());
+    BoundedEventQueue queue = new BoundedEventQueue(consumedEvents::add);
+
+    queue.offer("Before stop");
+    queue.stop();
+
+    assertTrue(queue.isStopped());
+    assertFalse(queue.offer("After stop"));
+    assertEquals(Collections.singletonList("Before stop"), consumedEvents);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void throwsExceptionWhenPuttingAfterStop() throws InterruptedException {
+    BoundedEventQueue queue = new BoundedEventQueue(event -> {});
+    queue.stop();
+    queue.put("After stop");
+  }
+
+  @Test
+  public void continuesConsumingAfterConsumerThrowsException() {
+    List<Object> consumedEvents = Collections.synchronizedList(new ArrayList<>());
+    BoundedEventQueue queue = new BoundedEventQueue(event -> {
+      if ("Throws".equals(event)) {
+        throw new IllegalStateException();
+      }
+      consumedEvents.add(event);
+    });
+
+    Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler((thread, exception) -> {});
+    try {
+      queue.offer("Throws");
+      queue.offer("Consumed");
+      queue.stop();
+    } finally {
+      Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+    }
+
+    assertEquals(Collections.singletonList("Consumed"), consumedEvents);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -12,14 +12,17 @@ import static creditcard_eventsourcing.model.CreditCard.withdrawingCardTooOften;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.requirementsascode.Condition;
 import org.requirementsascode.Model;
 import org.requirementsascode.ModelRunner;
+import org.requirementsascode.ModelRunnerState;
 import org.requirementsascode.Step;
 
 import creditcard_eventsourcing.model.command.RequestToCloseCycle;
@@ -42,30 +45,40 @@ public class CreditCardAggregateRoot {
 	private static final Class<RequestRepay> requestsRepay = RequestRepay.class;
 	private static final Class<RequestToCloseCycle> requestToCloseCycle = RequestToCloseCycle.class;
 
+	// The model is built once, and shared by all aggregate roots.
+	// Its handlers and conditions delegate to the aggregate root
+	// that handles the current command in the calling thread.
+	private static final ThreadLocal<CreditCardAggregateRoot> handlingAggregateRoot = new ThreadLocal<>();
+
 	// Command handling methods
-	private Function<RequestToAssignLimit, DomainEvent> assignedLimit = this::assignedLimit;
-	private Function<RequestWithdrawal, DomainEvent> withdrawnCard = this::withdrawnCard;
-	private Function<RequestRepay, DomainEvent> repay = this::repay;
-	private Function<RequestToCloseCycle, DomainEvent> closedCycle = this::closedCycle;
-	private Consumer<RequestToAssignLimit> throwsAssignLimitException = this::throwAssignLimitException;
-	private Consumer<RequestWithdrawal> throwsTooManyWithdrawalsException = this::throwTooManyWithdrawalsException;
+	private static final Function<RequestToAssignLimit, DomainEvent> assignedLimit = request -> handlingAggregateRoot().assignedLimit(request);
+	private static final Function<RequestWithdrawal, DomainEvent> withdrawnCard = request -> handlingAggregateRoot().withdrawnCard(request);
+	private static final Function<RequestRepay, DomainEvent> repay = request -> handlingAggregateRoot().repay(request);
+	private static final Function<RequestToCloseCycle, DomainEvent> closedCycle = request -> handlingAggregateRoot().closedCycle(request);
+	private static final Consumer<RequestToAssignLimit> throwsAssignLimitException = request -> handlingAggregateRoot().throwAssignLimitException(request);
+	private static final Consumer<RequestWithdrawal> throwsTooManyWithdrawalsException = request -> handlingAggregateRoot().throwTooManyWithdrawalsException(request);
 
 	// Conditions
-	private Condition tooManyWithdrawalsInCycle = this::tooManyWithdrawalsInCycle;
-	private Condition limitAlreadyAssigned = this::limitAlreadyAssigned;
-	private Condition accountIsOpen = this::accountIsOpen;
+	private static final Condition tooManyWithdrawalsInCycle = () -> handlingAggregateRoot().tooManyWithdrawalsInCycle();
+	private static final Condition limitAlreadyAssigned = () -> handlingAggregateRoot().limitAlreadyAssigned();
+	private static final Condition accountIsOpen = () -> handlingAggregateRoot().accountIsOpen();
+
+	// Model, model runners and states shared by all aggregate roots.
+	// A model runner must not be used by several threads, so each thread has its own.
+	private static final Model model = buildModel();
+	private static final ThreadLocal<ModelRunner> modelRunner = ThreadLocal.withInitial(() -> new ModelRunner().run(model()));
+	private static final ModelRunnerState initialState = modelRunner().snapshot();
+	private static final Map<String, ModelRunnerState> stepNameToState = new ConcurrentHashMap<>();
 
 	// Other fields
 	private final UUID uuid;
 	private final EventStore eventStore;
-	private final Model model;
 	
 	private CreditCard creditCard;
 
 	public CreditCardAggregateRoot(UUID uuid, EventStore eventStore) {
 		this.uuid = uuid;
 		this.eventStore = eventStore;
-		this.model = buildModel();
 		this.creditCard = loadCreditCard();
 	}
 
@@ -74,7 +87,7 @@ public class CreditCardAggregateRoot {
 	 * 
 	 * @return the use case model
 	 */
-	private Model buildModel() {
+	private static Model buildModel() {
 		Model model = Model.builder()
 		  .useCase(useCreditCard)
 		    .basicFlow()
@@ -123,12 +136,17 @@ public class CreditCardAggregateRoot {
 		return creditCard;
 	}
 	
-	// Creates a new model runner and restores the previous state.
+	// Restores the previous state of the model runner.
 	// The runner handles the command and returns an event.
 	private Optional<DomainEvent> restoreStateAndHandle(Object command) {
-		ModelRunner modelRunner = new ModelRunner().run(model());
+		ModelRunner modelRunner = modelRunner();
 		restorePreviousStateOf(modelRunner);
-		return modelRunner.reactTo(command);
+		handlingAggregateRoot.set(this);
+		try {
+			return modelRunner.reactTo(command);
+		} finally {
+			handlingAggregateRoot.remove();
+		}
 	}
 
 	// If a command handler returned an event, apply it to the credit card 
@@ -192,15 +210,24 @@ public class CreditCardAggregateRoot {
 	
 	// Methods for restoring the previous state of the ModelRunner
 	
+	// The state after each step of the event model is only determined once
+	// for all aggregate roots, and then restored from a snapshot.
 	private void restorePreviousStateOf(ModelRunner modelRunner) {
-		Optional<Step> latestStepOfEventModel = creditCard().latestStep();
-		latestStepOfEventModel.ifPresent(step -> {
-			Step latestStepOfCommandModel = findNamedStep(step.getName());
-			modelRunner.setLatestStep(latestStepOfCommandModel);
-		});
+		ModelRunnerState previousState = creditCard().latestStep()
+			.map(step -> stepNameToState.computeIfAbsent(step.getName(), CreditCardAggregateRoot::stateAfterNamedStep))
+			.orElse(initialState);
+		modelRunner.restore(previousState);
+	}
+	
+	private static ModelRunnerState stateAfterNamedStep(String stepName) {
+		Step latestStepOfCommandModel = findNamedStep(stepName);
+		ModelRunner modelRunner = modelRunner();
+		modelRunner.restore(initialState);
+		modelRunner.setLatestStep(latestStepOfCommandModel);
+		return modelRunner.snapshot();
 	}
 
-	private Step findNamedStep(final String stepName) {
+	private static Step findNamedStep(final String stepName) {
 		Step step = model().findUseCase(useCreditCard).findStep(stepName);
 		return step;
 	}
@@ -217,7 +244,15 @@ public class CreditCardAggregateRoot {
 		return eventStore;
 	}
 
-	private Model model() {
+	private static Model model() {
 		return model;
 	}
+
+	private static ModelRunner modelRunner() {
+		return modelRunner.get();
+	}
+
+	private static CreditCardAggregateRoot handlingAggregateRoot() {
+		return handlingAggregateRoot.get();
+	}
 }